@@ -0,0 +1,92 @@
+/**
+ * Lets another thread pause, resume or cancel the AI turns of a game, or slow them down to a number of
+ * milliseconds per turn so they can be watched. The game checks it before every AI turn, so a turn that has
+ * started is always finished and the game is never left halfway through a command.
+ */
+public class AIControl {
+    private boolean paused = false;
+    private boolean cancelled = false;
+    private long turnDelay = 0; // minimum milliseconds between the start of two AI turns, 0 for full speed
+    private long lastTurn = System.nanoTime(); // at the start of the last AI turn
+
+    /**
+     * Stop before the next AI turn until resumed
+     */
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    /**
+     * Continue playing AI turns after a pause
+     */
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    /**
+     * Stop playing AI turns, the game stays on the AI player whose turn it is
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    /**
+     * Set how fast AI turns are played
+     * @param turnDelay The minimum number of milliseconds between the start of two AI turns, 0 for full speed
+     */
+    public synchronized void setTurnDelay(long turnDelay) {
+        this.turnDelay = Math.max(0, turnDelay);
+        notifyAll();
+    }
+
+    /**
+     * Get how fast AI turns are played
+     * @return The minimum number of milliseconds between the start of two AI turns
+     */
+    public synchronized long getTurnDelay() {
+        return turnDelay;
+    }
+
+    /**
+     * Checks if AI turns are paused
+     * @return true if paused, false otherwise
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Checks if AI turns were cancelled
+     * @return true if cancelled, false otherwise
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called by the game before every AI turn, waits while paused and until the turn delay has passed
+     * @return true if the AI turn may be played, false if it was cancelled or the thread was interrupted
+     */
+    public synchronized boolean awaitTurn() {
+        try {
+            while (!cancelled) {
+                if (paused) {
+                    wait();
+                    continue;
+                }
+                long remaining = turnDelay - (System.nanoTime() - lastTurn) / 1_000_000;
+                if (remaining <= 0) {
+                    break;
+                }
+                wait(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        lastTurn = System.nanoTime();
+        return !cancelled;
+    }
+}
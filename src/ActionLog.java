@@ -0,0 +1,408 @@
+import javax.swing.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The action log behind a text area. Lines and LogEvents can be added from any thread; they are queued and moved
+ * to the text area on the EDT by a timer, so a burst of lines causes one append and one repaint per tick, and
+ * LogEvents are only formatted there. The text area only holds the most recent entries, older entries are
+ * dropped from it like from a ring buffer.
+ *
+ * Every entry is also appended to a journal file as it is flushed, which is forced to disk every FORCE_INTERVAL.
+ * The journal is only ever appended to. Saving only records which segments of the journal hold this game's log,
+ * and loading maps the journal and only decodes the last entries, so neither depends on how long the game has
+ * been running. A loaded game's new entries start a new segment at the end of the journal, unless its log
+ * already ends there, so the logs of other saves are never overwritten. Before the journal is opened, compact
+ * drops the entries that no save refers to any more.
+ */
+public class ActionLog {
+    /**
+     * The number of entries shown in the text area
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * The journal file the GUI keeps the action logs of its games in
+     */
+    public static final String JOURNAL_FILE = "Actionlog.journal";
+
+    /**
+     * The time between two flushes to the text area in milliseconds
+     */
+    public static final int FLUSH_INTERVAL = 100;
+
+    /**
+     * The time between two forces of the journal to disk in milliseconds
+     */
+    public static final int FORCE_INTERVAL = 1000;
+
+    private final JTextArea textArea;
+    private final ConcurrentLinkedQueue<Object> pending = new ConcurrentLinkedQueue<>(); // lines and LogEvents
+    private final String[] entries; // entries shown in the text area, oldest at first
+    private int first = 0;
+    private int size = 0;
+    private final FileChannel journal;
+    private long[] history = new long[0]; // start and end offsets of this game's earlier segments, oldest first
+    private long start; // offset of the first entry of this game's current segment in the journal
+    private long end; // offset after this game's last entry in the journal
+    private long lastForce = System.nanoTime();
+    private boolean forced = true;
+    private final Timer timer;
+
+    /**
+     * Constructor for class ActionLog, starts flushing to the text area. Entries are appended after anything
+     * already in the journal, so the logs of saved games stay intact
+     * @param textArea The text area to show the log in
+     * @param capacity The number of entries to keep in the text area
+     * @param journalFile The journal file, created if it does not exist
+     * @throws IOException If the journal cannot be opened
+     */
+    public ActionLog(JTextArea textArea, int capacity, Path journalFile) throws IOException {
+        this.textArea = textArea;
+        entries = new String[capacity];
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        start = journal.size();
+        end = start;
+        timer = new Timer(FLUSH_INTERVAL, e -> flush());
+        timer.start();
+    }
+
+    /**
+     * Queue a line for the log, can be called from any thread
+     * @param line The line to add
+     */
+    public void append(String line) {
+        pending.add(line);
+    }
+
+    /**
+     * Queue an entry for the log, can be called from any thread. It is only formatted when it is flushed
+     * @param event The entry to add
+     */
+    public void append(LogEvent event) {
+        pending.add(event);
+    }
+
+    /**
+     * Move the queued lines to the journal and the text area, dropping the oldest entries from the text area
+     * Must be called on the EDT
+     */
+    public void flush() {
+        StringBuilder text = new StringBuilder();
+        int removed = 0; // characters of dropped entries at the start of the text area
+        Object entry;
+        while ((entry = pending.poll()) != null) {
+            String line = entry.toString();
+            if (size == entries.length) {
+                removed += entries[first].length() + 1;
+                entries[first] = line;
+                first = (first + 1) % entries.length;
+            } else {
+                entries[(first + size++) % entries.length] = line;
+            }
+            text.append(line).append('\n');
+        }
+
+        try {
+            if (text.length() > 0) {
+                ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    end += journal.write(bytes, end);
+                }
+                forced = false;
+            }
+            if (!forced && System.nanoTime() - lastForce >= FORCE_INTERVAL * 1_000_000L) {
+                force();
+            }
+        } catch (IOException e) {
+            // The text area still shows the recent entries, only saving the log is affected
+            e.printStackTrace();
+        }
+
+        if (text.length() == 0) {
+            return;
+        }
+        textArea.append(text.toString());
+        if (removed > 0) {
+            textArea.replaceRange(null, 0, removed);
+        }
+        textArea.setCaretPosition(textArea.getDocument().getLength());
+    }
+
+    /**
+     * Get the entries currently shown in the text area
+     * @return The entries, oldest first
+     */
+    public List<String> getEntries() {
+        List<String> shown = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            shown.add(entries[(first + i) % entries.length]);
+        }
+        return shown;
+    }
+
+    /**
+     * Save the log by forcing the journal to disk and recording which parts of it belong to this game
+     * Must be called on the EDT
+     * @param file The file to record the journal offsets in
+     * @throws IOException If the journal cannot be forced or the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        flush();
+        force();
+        long[] segments = Arrays.copyOf(history, history.length + 2);
+        segments[history.length] = start;
+        segments[history.length + 1] = end;
+        writeSegments(file, segments);
+    }
+
+    /**
+     * Replace the log with the log of a saved game. Nothing is removed from the journal: new entries continue
+     * the saved log if it ends at the end of the journal and start a new segment there otherwise. Only the last
+     * entries are decoded to be shown in the text area
+     * Must be called on the EDT
+     * @param file The file the journal offsets were saved in
+     * @throws IOException If the file cannot be read or does not match the journal
+     */
+    public void load(Path file) throws IOException {
+        long journalSize = journal.size();
+        long[] segments = readSegments(file, journalSize);
+
+        pending.clear();
+        if (segments[segments.length - 1] == journalSize) {
+            history = Arrays.copyOf(segments, segments.length - 2);
+            start = segments[segments.length - 2];
+        } else {
+            history = segments;
+            start = journalSize;
+        }
+        end = journalSize;
+
+        // Walk back from the end of the saved log until enough lines are found, without reading the rest
+        List<byte[]> parts = new ArrayList<>();
+        int found = 0;
+        for (int i = segments.length - 2; i >= 0 && found < entries.length; i -= 2) {
+            if (segments[i + 1] == segments[i]) {
+                continue;
+            }
+            MappedByteBuffer mapped = journal.map(FileChannel.MapMode.READ_ONLY, segments[i], segments[i + 1] - segments[i]);
+            int from = 0;
+            for (int j = mapped.limit() - 2; j >= 0; j--) { // the last byte is the last entry's newline
+                if (mapped.get(j) == '\n' && ++found == entries.length) {
+                    from = j + 1;
+                    break;
+                }
+            }
+            if (from == 0) {
+                found++; // the segment's first entry has no newline before it
+            }
+            byte[] bytes = new byte[mapped.limit() - from];
+            mapped.position(from);
+            mapped.get(bytes);
+            parts.add(0, bytes);
+        }
+        StringBuilder text = new StringBuilder();
+        for (byte[] bytes : parts) {
+            text.append(new String(bytes, StandardCharsets.UTF_8));
+        }
+        String tail = text.toString();
+
+        first = 0;
+        size = 0;
+        if (!tail.isEmpty()) {
+            String[] lines = tail.split("\n", -1);
+            // The tail ends with a newline, so the last element is always empty
+            for (int i = 0; i < lines.length - 1; i++) {
+                entries[size++] = lines[i];
+            }
+        }
+        textArea.setText(tail);
+        textArea.setCaretPosition(textArea.getDocument().getLength());
+    }
+
+    /**
+     * Stop flushing to the text area and close the journal
+     * @throws IOException If the journal cannot be forced or closed
+     */
+    public void close() throws IOException {
+        timer.stop();
+        force();
+        journal.close();
+    }
+
+    /**
+     * Drop the parts of a journal that no saved log refers to, once they make up at least half of it, so each
+     * byte is copied about once however often the game is started. Must be called before an ActionLog opens
+     * the journal. The new journal and log files are all written next to the old ones before any of them is
+     * replaced, and a marker file records that they are complete, so a compaction cut short by a crash is
+     * finished by the next call or not done at all
+     * @param journalFile The journal file
+     * @param logFiles Every file a log was saved to from this journal, files that do not match it are left alone
+     * @throws IOException If the files cannot be read or written
+     */
+    public static void compact(Path journalFile, List<Path> logFiles) throws IOException {
+        List<Path> files = new ArrayList<>(logFiles);
+        files.add(journalFile);
+        Path marker = journalFile.resolveSibling(journalFile.getFileName() + ".compacted");
+        if (Files.exists(marker)) {
+            replaceWithCompacted(files, marker);
+            return;
+        }
+        for (Path file : files) {
+            Files.deleteIfExists(compacted(file));
+        }
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+
+        long journalSize = Files.size(journalFile);
+        List<Path> logs = new ArrayList<>();
+        List<long[]> segments = new ArrayList<>();
+        for (Path file : logFiles) {
+            try {
+                segments.add(readSegments(file, journalSize));
+                logs.add(file);
+            } catch (IOException e) {
+                // A log that does not match the journal cannot be loaded anyway
+            }
+        }
+
+        // Merge the segments into the ranges to keep, saves of the same game share the start of their logs
+        List<long[]> ranges = new ArrayList<>();
+        for (long[] log : segments) {
+            for (int i = 0; i < log.length; i += 2) {
+                if (log[i + 1] > log[i]) {
+                    ranges.add(new long[]{log[i], log[i + 1]});
+                }
+            }
+        }
+        ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+        List<long[]> kept = new ArrayList<>(); // old start, old end and new start of each range
+        long keptSize = 0;
+        for (long[] range : ranges) {
+            long[] last = kept.isEmpty() ? null : kept.get(kept.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                keptSize += Math.max(0, range[1] - last[1]);
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                kept.add(new long[]{range[0], range[1], keptSize});
+                keptSize += range[1] - range[0];
+            }
+        }
+        if (keptSize * 2 > journalSize) {
+            return;
+        }
+
+        try (FileChannel from = FileChannel.open(journalFile, StandardOpenOption.READ);
+             FileChannel to = FileChannel.open(compacted(journalFile), StandardOpenOption.CREATE_NEW,
+                     StandardOpenOption.WRITE)) {
+            for (long[] range : kept) {
+                long position = range[0];
+                while (position < range[1]) {
+                    position += from.transferTo(position, range[1] - position, to);
+                }
+            }
+            to.force(false);
+        }
+        for (int i = 0; i < logs.size(); i++) {
+            long[] log = segments.get(i);
+            for (int j = 0; j < log.length; j++) {
+                log[j] = moved(kept, log[j], j % 2 == 1);
+            }
+            writeSegments(compacted(logs.get(i)), log);
+        }
+        Files.createFile(marker);
+        replaceWithCompacted(files, marker);
+    }
+
+    /**
+     * Get where an offset is after compaction
+     * @param kept The old start, old end and new start of each range kept, in order
+     * @param offset An offset in a range that is kept, or anywhere for an empty segment
+     * @param isEnd Whether the offset is the end of a segment, which may be the end of a range
+     */
+    private static long moved(List<long[]> kept, long offset, boolean isEnd) {
+        long movedTo = 0;
+        for (long[] range : kept) {
+            if (offset >= range[0] && (offset < range[1] || isEnd && offset == range[1])) {
+                return range[2] + offset - range[0];
+            }
+            if (range[0] < offset) {
+                movedTo = range[2] + range[1] - range[0];
+            }
+        }
+        // Empty segments between the ranges move to the end of the range before them
+        return movedTo;
+    }
+
+    /**
+     * Replace every file that has a compacted version with it, then remove the marker
+     */
+    private static void replaceWithCompacted(List<Path> files, Path marker) throws IOException {
+        for (Path file : files) {
+            if (Files.exists(compacted(file))) {
+                Files.move(compacted(file), file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.delete(marker);
+    }
+
+    private static Path compacted(Path file) {
+        return file.resolveSibling(file.getFileName() + ".compact");
+    }
+
+    /**
+     * Read the start and end offsets of the segments of a saved log, oldest first
+     * @param file The file the log was saved to
+     * @param journalSize The size of the journal the log was saved from
+     * @return The offsets
+     * @throws IOException If the file cannot be read or does not match the journal
+     */
+    private static long[] readSegments(Path file, long journalSize) throws IOException {
+        long[] segments = new long[(int) Math.min(Files.size(file) / Long.BYTES, Integer.MAX_VALUE)];
+        if (segments.length == 0 || segments.length % 2 != 0) {
+            throw new IOException("The saved action log does not match the journal");
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = in.readLong();
+            }
+        }
+        for (int i = 0; i < segments.length; i += 2) {
+            if (segments[i] < 0 || segments[i] > segments[i + 1] || segments[i + 1] > journalSize) {
+                throw new IOException("The saved action log does not match the journal");
+            }
+        }
+        return segments;
+    }
+
+    private static void writeSegments(Path file, long[] segments) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            for (long offset : segments) {
+                out.writeLong(offset);
+            }
+        }
+    }
+
+    /**
+     * Force the journal's entries to disk
+     */
+    private void force() throws IOException {
+        journal.force(false);
+        lastForce = System.nanoTime();
+        forced = true;
+    }
+}
@@ -1,16 +1,20 @@
 import javax.swing.*;
 import java.awt.*;
+import java.util.Comparator;
 import java.util.stream.Collectors;
 
 /**
  * A simple JPanel with a list of available territories to attack from, adjacent territories to attack,
- * and a JSlider to specify how many armies to attack with.
+ * a JSlider to specify how many armies to attack with, and the odds of the selected attack.
  *
  * @author Nicolas Tuttle
  */
 public class AttackPanel extends JPanel {
     private final JList<Territory> ownedList, adjacentList;
     private final JSlider armySlider;
+    private final JLabel oddsLabel;
+    private final JCheckBox blitzBox;
+    private final JSpinner blitzStopSpinner;
 
     /**
      * Constructor for class AttackPanel. Initializes all JLists with information from the attacking player
@@ -23,9 +27,10 @@ public class AttackPanel extends JPanel {
 
         // Get all land owned by attacker with more than 1 unit, and an adjacent enemy territory
         ownedTerritories.addAll(
-                attacker.getLandWithAdjacentEnemy(game)
+                attacker.getLandWithAdjacentEnemy()
                         .stream()
                         .filter(territory -> territory.getNumArmies() > 1)
+                        .sorted(Comparator.comparing(Territory::getId))
                         .collect(Collectors.toList())
         );
 
@@ -45,20 +50,35 @@ public class AttackPanel extends JPanel {
         armySlider.setPaintLabels(true);
 
 
+        oddsLabel = new JLabel(" ", JLabel.CENTER);
+        blitzBox = new JCheckBox("Blitz: keep attacking with as many armies as possible until the territory falls");
+        blitzStopSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1, 1));
+        blitzStopSpinner.setEnabled(false);
+        blitzBox.addActionListener(e -> {
+            blitzStopSpinner.setEnabled(blitzBox.isSelected());
+            armySlider.setEnabled(!blitzBox.isSelected() && armySlider.getMaximum() > 1);
+        });
+        adjacentList.addListSelectionListener(e -> {
+            Territory attackTerr = ownedList.getSelectedValue();
+            Territory defendTerr = adjacentList.getSelectedValue();
+            oddsLabel.setText((attackTerr == null || defendTerr == null) ? " " : "If fought to the end: " + BattleOdds.of(attackTerr, defendTerr));
+        });
+
         ownedList.addListSelectionListener(e -> {
             Territory attackTerr = ownedList.getSelectedValue();
-            int maxArmies = Math.min(attackTerr.getNumArmies() - 1, 3);
+            int maxArmies = Math.min(attackTerr.getNumArmies() - 1, Game.MAX_ATTACK_DICE);
             armySlider.setEnabled(maxArmies > 0);
             armySlider.setMaximum(armySlider.isEnabled() ? maxArmies : 1);
+            blitzStopSpinner.setModel(new SpinnerNumberModel(1, 1, attackTerr.getNumArmies() - 1, 1));
             // Clear all entries to replace with new territories
             adjacentTerritories.removeAllElements();
-            adjacentTerritories.addAll(attackTerr.getAdjacentEnemy(game));
+            adjacentTerritories.addAll(attackTerr.getAdjacentEnemy());
         });
 
         JScrollPane ownedScrollPane = new JScrollPane(ownedList, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
         JScrollPane adjacentScrollPane = new JScrollPane(adjacentList, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 
-        setLayout(new GridLayout(2, 3));
+        JPanel selectionPanel = new JPanel(new GridLayout(2, 3));
         JLabel ownedLabel = new JLabel("Owned territories:", JLabel.CENTER);
         ownedLabel.setVerticalAlignment(JLabel.BOTTOM);
         JLabel adjacentLabel = new JLabel("Adjacent territories:", JLabel.CENTER);
@@ -66,12 +86,25 @@ public class AttackPanel extends JPanel {
         JLabel armyLabel = new JLabel("Number of armies:", JLabel.CENTER);
         armyLabel.setVerticalAlignment(JLabel.BOTTOM);
 
-        add(ownedLabel);
-        add(adjacentLabel);
-        add(armyLabel);
-        add(ownedScrollPane);
-        add(adjacentScrollPane);
-        add(armySlider);
+        selectionPanel.add(ownedLabel);
+        selectionPanel.add(adjacentLabel);
+        selectionPanel.add(armyLabel);
+        selectionPanel.add(ownedScrollPane);
+        selectionPanel.add(adjacentScrollPane);
+        selectionPanel.add(armySlider);
+
+        JPanel blitzPanel = new JPanel();
+        blitzPanel.add(blitzBox);
+        blitzPanel.add(new JLabel("or until down to"));
+        blitzPanel.add(blitzStopSpinner);
+        blitzPanel.add(new JLabel("armies"));
+        JPanel bottomPanel = new JPanel(new GridLayout(2, 1));
+        bottomPanel.add(blitzPanel);
+        bottomPanel.add(oddsLabel);
+
+        setLayout(new BorderLayout());
+        add(selectionPanel, BorderLayout.CENTER);
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     /**
@@ -101,4 +134,20 @@ public class AttackPanel extends JPanel {
             return armySlider.getValue();
         }
     }
+
+    /**
+     * Checks if the player wants to blitz instead of attacking once
+     * @return true if blitz is selected, false otherwise
+     */
+    public boolean isBlitz() {
+        return blitzBox.isSelected();
+    }
+
+    /**
+     * Get the number of armies at which a blitz should stop
+     * @return The number of armies to stop at
+     */
+    public int getBlitzStopAt() {
+        return (Integer) blitzStopSpinner.getValue();
+    }
 }
@@ -0,0 +1,146 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A view that saves its game every few actions or seconds without pausing play. The game's state is copied into
+ * a GameSnapshot on the thread playing the game, which takes time proportional to the number of territories, and
+ * the snapshot is written on a background thread. Saves are only taken once a command or AI turn has sent its
+ * changes, so a snapshot never catches a game halfway through a command.
+ *
+ * If the game is saved again before the last snapshot was written, only the newer one is written.
+ */
+public class Autosave implements GameView, Closeable {
+    /**
+     * The save slot the GUI autosaves its game to
+     */
+    public static final String AUTOSAVE_SLOT = "autosave";
+
+    /**
+     * The number of actions after which the game is saved
+     */
+    public static final int DEFAULT_ACTIONS = 20;
+
+    /**
+     * The number of seconds after which a game with unsaved actions is saved
+     */
+    public static final int DEFAULT_SECONDS = 60;
+
+    private final Game game;
+    private final SaveCatalog catalog;
+    private final String slot;
+    private final int actionInterval;
+    private final long intervalNanos;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int actions = 0; // actions since the last save
+    private long lastSave = System.nanoTime();
+    private GameSnapshot pending; // the snapshot waiting to be written, guarded by this
+    private CompletableFuture<Void> pendingWrite; // the write that will write pending, guarded by this
+
+    /**
+     * Constructor for class Autosave, the autosave should be added to the game's views
+     * @param game The game to save
+     * @param catalog The save slots
+     * @param slot The slot to save the game to
+     * @param actionInterval The number of actions after which the game is saved
+     * @param seconds The number of seconds after which a game with unsaved actions is saved
+     */
+    public Autosave(Game game, SaveCatalog catalog, String slot, int actionInterval, int seconds) {
+        this.game = game;
+        this.catalog = catalog;
+        this.slot = slot;
+        this.actionInterval = actionInterval;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    /**
+     * Save the game to the autosave slot now. Must be called on the thread playing the game, while no command is
+     * running
+     * @return Completes once the snapshot taken now, or a newer one, was written to the slot
+     */
+    public CompletableFuture<Void> save() {
+        actions = 0;
+        lastSave = System.nanoTime();
+        GameSnapshot snapshot = game.snapshot();
+        synchronized (this) {
+            boolean queued = pending != null;
+            pending = snapshot;
+            if (!queued) {
+                pendingWrite = CompletableFuture.runAsync(() -> {
+                    GameSnapshot latest;
+                    synchronized (this) {
+                        latest = pending;
+                        pending = null;
+                    }
+                    write(latest, slot);
+                }, writer);
+            }
+            return pendingWrite;
+        }
+    }
+
+    /**
+     * Save the game to another slot on the background thread, e.g. when the player saves it. Must be called on
+     * the thread playing the game, while no command is running
+     * @param slot The slot to save the game to
+     * @return Completes once the game was written to the slot
+     */
+    public CompletableFuture<Void> saveTo(String slot) {
+        GameSnapshot snapshot = game.snapshot();
+        return CompletableFuture.runAsync(() -> write(snapshot, slot), writer);
+    }
+
+    private void write(GameSnapshot snapshot, String slot) {
+        try {
+            catalog.save(slot, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The game could not be saved to " + slot, e);
+        }
+    }
+
+    @Override
+    public void updateView(Game game) {
+        // e.g. after a load, there is nothing new to save
+        actions = 0;
+        lastSave = System.nanoTime();
+    }
+
+    @Override
+    public void handleEvents(List<GameEvent> events) {
+        // The game sends changes at the end of a command, when its state is consistent
+        if (actions >= actionInterval || (actions > 0 && System.nanoTime() - lastSave >= intervalNanos)) {
+            save().exceptionally(e -> {
+                // An autosave that failed is not fatal, the next one tries again
+                e.printStackTrace();
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void log(LogEvent event) {
+        actions++;
+    }
+
+    /**
+     * Stop the background thread after writing the last snapshot
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
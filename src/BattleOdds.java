@@ -0,0 +1,281 @@
+import java.util.Arrays;
+
+/**
+ * Calculates the exact odds of an attack that is repeated until the defending territory falls or the attacking
+ * territory has only one army left. Each round is a step in a Markov chain over (attacking armies, defending armies)
+ * whose transition probabilities come from every possible 3v2, 3v1, 2v2, 2v1, 1v2 and 1v1 roll. The results for
+ * every pair of army counts below MAX_ARMIES are memoized in a table shared by all games, which is built up to the
+ * largest battle asked about so far and never beyond MAX_ARMIES on either side.
+ *
+ * Battles with MAX_ARMIES or more on either side are not memoized, as the table would take gigabytes. Their odds
+ * are approximated instead by treating the battle as 3v2 rounds whose losses are normally distributed. Measured
+ * against the exact table, the win probability is within 0.01 for every battle whose larger side has 200 to 420
+ * armies.
+ *
+ * The attacker always rolls as many dice as it can and so does the defender. Like Game.attack, the round that
+ * conquers the territory costs the attacker nothing.
+ */
+public class BattleOdds {
+    /**
+     * The army count from which battles are approximated rather than memoized
+     */
+    public static final int MAX_ARMIES = 200;
+
+    // ROUND_LOSSES[a][d][k] is the probability that the attacker loses k armies when rolling a dice against d
+    private static final double[][][] ROUND_LOSSES = new double[Game.MAX_ATTACK_DICE + 1][Game.MAX_DEFEND_DICE + 1][];
+
+    // Replaced, never modified, once built so it can be read without locking
+    private static volatile Table table = new Table(0, 0);
+
+    static {
+        for (int a = 1; a <= Game.MAX_ATTACK_DICE; a++) {
+            for (int d = 1; d <= Game.MAX_DEFEND_DICE; d++) {
+                ROUND_LOSSES[a][d] = enumerateRound(a, d);
+            }
+        }
+    }
+
+    private final double win;
+    private final double expectedAttackers;
+    private final double expectedDefenders;
+
+    private BattleOdds(double win, double expectedAttackers, double expectedDefenders) {
+        this.win = win;
+        this.expectedAttackers = expectedAttackers;
+        this.expectedDefenders = expectedDefenders;
+    }
+
+    /**
+     * Get the odds of attacking from a territory with a number of armies against a territory with a number of armies
+     * @param attackers The armies in the attacking territory (including the one that has to stay behind)
+     * @param defenders The armies in the defending territory
+     * @return The odds of the battle
+     */
+    public static BattleOdds of(int attackers, int defenders) {
+        if (attackers >= MAX_ARMIES || defenders >= MAX_ARMIES) {
+            return approximate(attackers, defenders);
+        }
+        Table t = tableFor(attackers, defenders);
+        return new BattleOdds(t.win[attackers][defenders], t.attackers[attackers][defenders], t.defenders[attackers][defenders]);
+    }
+
+    /**
+     * Get the probability of conquering a territory without creating a BattleOdds object, for use in loops
+     * @param attackers The armies in the attacking territory (including the one that has to stay behind)
+     * @param defenders The armies in the defending territory
+     * @return The probability of winning, between 0 and 1
+     */
+    public static double winProbability(int attackers, int defenders) {
+        if (attackers >= MAX_ARMIES || defenders >= MAX_ARMIES) {
+            return approximate(attackers, defenders).win;
+        }
+        return tableFor(attackers, defenders).win[attackers][defenders];
+    }
+
+    /**
+     * Get the odds of attacking one territory from another with their current armies
+     * @param attacking The attacking territory
+     * @param defending The defending territory
+     * @return The odds of the battle
+     */
+    public static BattleOdds of(Territory attacking, Territory defending) {
+        return of(attacking.getNumArmies(), defending.getNumArmies());
+    }
+
+    /**
+     * Get the probability that the attacker conquers the territory
+     * @return The probability of winning, between 0 and 1
+     */
+    public double getWinProbability() {
+        return win;
+    }
+
+    /**
+     * Get the expected number of armies left in the attacking territory when the battle ends
+     * @return The expected attacking armies
+     */
+    public double getExpectedAttackerSurvivors() {
+        return expectedAttackers;
+    }
+
+    /**
+     * Get the expected number of armies left in the defending territory when the battle ends
+     * @return The expected defending armies, 0 if conquered
+     */
+    public double getExpectedDefenderSurvivors() {
+        return expectedDefenders;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f%% to conquer, %.1f attacking and %.1f defending armies expected to survive",
+                win * 100, expectedAttackers, expectedDefenders);
+    }
+
+    /**
+     * Get a memo table that covers the given battle, building a larger one if needed
+     */
+    private static Table tableFor(int attackers, int defenders) {
+        if (attackers < 0 || defenders < 0) {
+            throw new IllegalArgumentException("Army counts cannot be negative");
+        }
+        Table t = table;
+        if (attackers < t.rows && defenders < t.columns) {
+            return t;
+        }
+        synchronized (BattleOdds.class) {
+            t = table;
+            if (attackers >= t.rows || defenders >= t.columns) {
+                t = new Table(
+                        attackers >= t.rows ? Math.min(MAX_ARMIES, Math.max(attackers + 1, t.rows * 2)) : t.rows,
+                        defenders >= t.columns ? Math.min(MAX_ARMIES, Math.max(defenders + 1, t.columns * 2)) : t.columns
+                );
+                table = t;
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Approximate the odds of a battle too large to memoize. While both sides are large every round is 3v2 and
+     * removes two armies, of which the attacker loses a mean a and the defender d = 2 - a. After r rounds,
+     * U = d * attacker losses - a * defender losses has mean 0 and variance 4vr, where v is the variance of the
+     * attacker's losses in a round. The attacker runs out first exactly when U passes K = d(attackers - 1) -
+     * a * defenders at the end of the battle, so U is taken as normal with r the expected length of the battle.
+     * Moving K down by one makes up for the smaller rolls at the end of the battle
+     */
+    private static BattleOdds approximate(int attackers, int defenders) {
+        if (attackers < 0 || defenders < 0) {
+            throw new IllegalArgumentException("Army counts cannot be negative");
+        }
+        if (defenders == 0) {
+            return new BattleOdds(1, attackers, 0);
+        }
+        if (attackers <= 1) {
+            return new BattleOdds(0, attackers, defenders);
+        }
+
+        double[] losses = ROUND_LOSSES[Game.MAX_ATTACK_DICE][Game.MAX_DEFEND_DICE];
+        double a = 0, square = 0;
+        for (int k = 0; k < losses.length; k++) {
+            a += losses[k] * k;
+            square += losses[k] * k * k;
+        }
+        double d = 2 - a;
+        double rounds = Math.min((attackers - 1) / a, defenders / d);
+        double deviation = 2 * Math.sqrt((square - a * a) * rounds);
+        double k = (d * (attackers - 1) - a * defenders - 1) / deviation;
+        double win = normalCdf(k);
+        double density = Math.exp(-k * k / 2) / Math.sqrt(2 * Math.PI);
+
+        // The expected survivors on each side when that side wins, plus one attacker left behind when it loses
+        double expectedAttackers = win * (attackers - a * defenders / d) + deviation * density / d + (1 - win);
+        double expectedDefenders = (1 - win) * (defenders - d * (attackers - 1) / a) + deviation * density / a;
+        return new BattleOdds(win, expectedAttackers, expectedDefenders);
+    }
+
+    /**
+     * The standard normal distribution function, from the erf approximation 7.1.26 of Abramowitz and Stegun,
+     * which is accurate to about 1e-7
+     */
+    private static double normalCdf(double x) {
+        double z = Math.abs(x) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * z);
+        double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027
+                + t * 1.061405429)))) * Math.exp(-z * z);
+        return x >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+    /**
+     * The memoized results for every battle up to a number of attacking and defending armies
+     */
+    private static class Table {
+        private final int rows, columns;
+        private final double[][] win, attackers, defenders;
+
+        /**
+         * Fills in every state in order of increasing armies. Every round removes at least one army, so each
+         * state only depends on states that are already filled in
+         */
+        Table(int rows, int columns) {
+            this.rows = rows;
+            this.columns = columns;
+            win = new double[rows][columns];
+            attackers = new double[rows][columns];
+            defenders = new double[rows][columns];
+
+            for (int n = 0; n < rows; n++) {
+                for (int m = 0; m < columns; m++) {
+                    if (m == 0) {
+                        win[n][m] = 1;
+                        attackers[n][m] = n;
+                        continue;
+                    }
+                    if (n <= 1) {
+                        attackers[n][m] = n;
+                        defenders[n][m] = m;
+                        continue;
+                    }
+
+                    int attackDice = Math.min(Game.MAX_ATTACK_DICE, n - 1);
+                    int defendDice = Math.min(Game.MAX_DEFEND_DICE, m);
+                    double[] losses = ROUND_LOSSES[attackDice][defendDice];
+                    int pairs = losses.length - 1;
+                    for (int attackLosses = 0; attackLosses <= pairs; attackLosses++) {
+                        double p = losses[attackLosses];
+                        int defendLosses = pairs - attackLosses;
+                        if (defendLosses >= m) {
+                            win[n][m] += p;
+                            attackers[n][m] += p * n;
+                        } else {
+                            win[n][m] += p * win[n - attackLosses][m - defendLosses];
+                            attackers[n][m] += p * attackers[n - attackLosses][m - defendLosses];
+                            defenders[n][m] += p * defenders[n - attackLosses][m - defendLosses];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out the probability of every outcome of a single round by going through all possible rolls
+     * @param attackDice The number of dice the attacker rolls
+     * @param defendDice The number of dice the defender rolls
+     * @return The probability of the attacker losing 0, 1, ... armies, up to the number of dice compared
+     */
+    private static double[] enumerateRound(int attackDice, int defendDice) {
+        int pairs = Math.min(attackDice, defendDice);
+        int[] counts = new int[pairs + 1];
+        int outcomes = (int) Math.pow(6, attackDice + defendDice);
+        int[] attackRolls = new int[attackDice];
+        int[] defendRolls = new int[defendDice];
+
+        for (int outcome = 0; outcome < outcomes; outcome++) {
+            int rest = outcome;
+            for (int i = 0; i < attackDice; i++, rest /= 6) {
+                attackRolls[i] = rest % 6 + 1;
+            }
+            for (int i = 0; i < defendDice; i++, rest /= 6) {
+                defendRolls[i] = rest % 6 + 1;
+            }
+            Arrays.sort(attackRolls);
+            Arrays.sort(defendRolls);
+
+            // Compare highest pairs with ties going to defender
+            int attackLosses = 0;
+            for (int i = 1; i <= pairs; i++) {
+                if (attackRolls[attackDice - i] <= defendRolls[defendDice - i]) {
+                    attackLosses++;
+                }
+            }
+            counts[attackLosses]++;
+        }
+
+        double[] probabilities = new double[pairs + 1];
+        for (int k = 0; k <= pairs; k++) {
+            probabilities[k] = (double) counts[k] / outcomes;
+        }
+        return probabilities;
+    }
+}
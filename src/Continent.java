@@ -1,4 +1,3 @@
-import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -7,9 +6,11 @@ import java.util.*;
  *
  * @author Nicolas Tuttle
  */
-public class Continent implements Serializable {
+public class Continent {
     private final String name;
     private final List<Territory> territories;
+    private final Map<Player, Integer> ownerCounts; //number of territories held by each owner on this continent
+    private Player conqueror; //player holding every territory, null if there is none
 
     public final int BONUS_ARMIES;
 
@@ -23,6 +24,11 @@ public class Continent implements Serializable {
         this.name = name;
         this.territories = territories;
         this.BONUS_ARMIES = bonusArmies;
+        ownerCounts = new IdentityHashMap<>();
+        for (Territory territory : territories) {
+            territory.setContinent(this);
+            ownerChanged(null, territory.getOwner());
+        }
     }
 
     /**
@@ -31,13 +37,35 @@ public class Continent implements Serializable {
      * the continent is not conquered
      */
     public Optional<Player> getConqueror() {
-        HashSet<Player> conquerors = new HashSet<>();
-        for (Territory territory: territories) {
-            conquerors.add(territory.getOwner());
-        }
+        return Optional.ofNullable(conqueror);
+    }
 
-        // Return the conqueror if all territories have the same owner, or an empty optional object otherwise
-        return (conquerors.size() == 1) ? Optional.of(conquerors.iterator().next()) : Optional.empty();
+    /**
+     * Updates the owner counts after one of this continent's territories changed owner, and awards or takes
+     * away the continent bonus if the conqueror changed
+     * @param oldOwner The territory's previous owner, may be null
+     * @param newOwner The territory's new owner, may be null
+     */
+    public void ownerChanged(Player oldOwner, Player newOwner) {
+        if (oldOwner != null) {
+            int count = ownerCounts.get(oldOwner) - 1;
+            if (count == 0) {
+                ownerCounts.remove(oldOwner);
+            } else {
+                ownerCounts.put(oldOwner, count);
+            }
+            if (conqueror == oldOwner) {
+                conqueror = null;
+                oldOwner.removeConqueredContinent(this);
+            }
+        }
+        if (newOwner != null) {
+            int count = ownerCounts.merge(newOwner, 1, Integer::sum);
+            if (count == territories.size()) {
+                conqueror = newOwner;
+                newOwner.addConqueredContinent(this);
+            }
+        }
     }
 
     /**
@@ -0,0 +1,98 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A set of territories keyed by their index in the compiled map. Adding, removing, membership checks and
+ * indexed reads are all constant time, which lets a player's frontier be kept up to date as territories
+ * change owner and be read without rescanning the map.
+ * Iteration order is not meaningful; removing a territory moves the last element into its slot.
+ */
+public class FrontierSet {
+    private Territory[] items = new Territory[8];
+    private int size = 0;
+    private int[] slots = new int[0]; // slot of each territory index plus one, 0 if it is not in the set
+    private final List<Territory> view = new ListView();
+
+    /**
+     * Add a territory to the set if it is not already present
+     * @param territory The territory to add, must be part of a compiled map
+     */
+    public void add(Territory territory) {
+        int index = territory.getIndex();
+        if (index >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(index + 1, slots.length * 2));
+        }
+        if (slots[index] != 0) {
+            return;
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size++] = territory;
+        slots[index] = size;
+    }
+
+    /**
+     * Remove a territory from the set if it is present
+     * @param territory The territory to remove
+     */
+    public void remove(Territory territory) {
+        int index = territory.getIndex();
+        if (!contains(territory)) {
+            return;
+        }
+        int slot = slots[index] - 1;
+        Territory last = items[--size];
+        items[slot] = last;
+        slots[last.getIndex()] = slot + 1;
+        items[size] = null;
+        slots[index] = 0;
+    }
+
+    /**
+     * Checks if a territory is in the set
+     * @param territory The territory to check
+     * @return true if the territory is in the set, false otherwise
+     */
+    public boolean contains(Territory territory) {
+        int index = territory.getIndex();
+        return index >= 0 && index < slots.length && slots[index] != 0;
+    }
+
+    /**
+     * Get the number of territories in the set
+     * @return The size of the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a live, read-only list view of the set
+     * @return The list view
+     */
+    public List<Territory> asList() {
+        return view;
+    }
+
+    private class ListView extends AbstractList<Territory> {
+        @Override
+        public Territory get(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+            }
+            return items[i];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Territory && FrontierSet.this.contains((Territory) o);
+        }
+    }
+}
@@ -1,10 +1,11 @@
 import org.xml.sax.SAXException;
 
-import javax.swing.*;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -15,13 +16,34 @@ import java.util.stream.Collectors;
  * @author Nicolas Tuttle, Phuc La, Robell Gabriel, Jacob Schmidt
  */
 
-public class Game implements Serializable {
+public class Game {
     private List<Player> activePlayers;
     private Map<String, Continent> continents;
+    private TerritoryGraph graph;
     private Player currentPlayer;
-    private final ArrayList<GameView> gameViews;
+    private final ArrayList<GameView> gameViews; //views and controls belong to the session, they are not saved
+    private PlayerDecisions playerDecisions; //asks human players for decisions, null to decide for them as an AI would
+    private AIControl aiControl; //pauses or cancels AI turns from another thread, null to always play them
+    private boolean runningAITurns = false;
+    private GameRandom random; //source of every dice roll, AI decision and initial deal in this game
+    private String mapFile; //file the map was imported from, null for the default map or one imported from a stream
+    private String mapHash; //MapCache key of a map imported from a stream, null if it was imported from a file
+    private GameJournal journal; //records every command, null if the game is not journaled
+    private MapCache mapCache; //compiled maps, null to parse every map imported
+    private int turn = 1;
+    private int turnLimit = Integer.MAX_VALUE;
+    private final int[] attackRolls = new int[MAX_ATTACK_DICE]; //reused by every attack so rolling never allocates
+    private final int[] defendRolls = new int[MAX_DEFEND_DICE];
+    private final int[] blitzFaces = new int[2 * LogEvent.DICE_FACES]; // attacker's then defender's count of each number rolled in a blitz
+    private final List<GameEvent> pendingEvents = new ArrayList<>(); //changes not yet sent to the views
+    private int batchDepth = 0;
 
     public enum Status {ATTACK, PLACE, DISABLE, DONE, PASS}
+
+    /**
+     * The file games are saved to and loaded from
+     */
+    public static final String SAVE_FILE = "RISK.sav";
     private Status status = Status.PLACE;
 
     /**
@@ -40,13 +62,33 @@ public class Game implements Serializable {
      */
     public static final int AI_MAX = 20;
 
+    /**
+     * The most dice an attacker may roll
+     */
+    public static final int MAX_ATTACK_DICE = 3;
+
+    /**
+     * The most dice a defender may roll
+     */
+    public static final int MAX_DEFEND_DICE = 2;
+
     /**
      * Constructor for the Game class
      */
     public Game() {
+        this(new GameRandom(System.nanoTime()));
+    }
+
+    /**
+     * Constructor for the Game class with a seeded random number generator. Games created with the same seed
+     * and given the same commands play out identically
+     * @param random The generator used for every dice roll, AI decision and initial deal in this game
+     */
+    public Game(GameRandom random) {
         activePlayers = new LinkedList<>();
         continents = new HashMap<>();
         gameViews = new ArrayList<>();
+        this.random = random;
     }
 
     /**
@@ -62,12 +104,17 @@ public class Game implements Serializable {
         for (String tid : mt.keySet()) {
             findTerritory(tid).ifPresent(territory -> {
                 territory.addArmy(mt.get(tid));
-                printLine(territory.getOwner().getName() + " has placed " + mt.get(tid) + " armies into " + territory.getName() +
-                        " which now has " + territory.getNumArmies() + " armies\n");
+                if (journal != null) {
+                    journal.place(territory, mt.get(tid));
+                }
+                if (!gameViews.isEmpty()) {
+                    log(LogEvent.placed(territory, mt.get(tid)));
+                }
+                armiesChanged(territory);
             });
 
         }
-        updateView();
+        phaseChanged();
     }
 
     /**
@@ -83,10 +130,16 @@ public class Game implements Serializable {
 
         if (toRemove.removeArmy(i)) {
             toPlace.addArmy(i);
-            printLine(toRemove.getOwner().getName()+" has moved " + i + " armies from " + toRemove.getName() + " to " + toPlace.getName());
-            printLine("Move phase is over\n");
-        } else {
-            printLine("some how u messed up tough luck");
+            if (journal != null) {
+                journal.move(toRemove, toPlace, i);
+            }
+            armiesChanged(toRemove);
+            armiesChanged(toPlace);
+            if (!gameViews.isEmpty()) {
+                log(LogEvent.moved(toRemove, toPlace, i));
+            }
+        } else if (!gameViews.isEmpty()) {
+            log(LogEvent.moveFailed());
         }
             done();
 
@@ -100,47 +153,125 @@ public class Game implements Serializable {
      * @param defending a territory that is defending the territory attacking
      * @param defendArmy an int that represents the amount of armies to defend with
      * @return a boolean representing whether the attacker takes over the territory
+     * @throws IllegalArgumentException if more dice are rolled than the rules allow
      *
      * @author Nicolas Tuttle
      */
     public boolean attack(Territory attacking, int attackArmy, Territory defending, int defendArmy) {
         status = Status.ATTACK;
-        LinkedList<Integer> attackRolls = rollDice(attackArmy);
-        LinkedList<Integer> defendRolls = rollDice(defendArmy);
+        if (attackArmy < 1 || attackArmy > MAX_ATTACK_DICE || defendArmy < 1 || defendArmy > MAX_DEFEND_DICE) {
+            throw new IllegalArgumentException("Invalid number of dice: " + attackArmy + " vs " + defendArmy);
+        }
+        int attackLosses = rollRound(attackArmy, defendArmy);
+        int defendLosses = Math.min(attackArmy, defendArmy) - attackLosses;
 
-        // Sort to find highest pairs
-        attackRolls.sort(Collections.reverseOrder());
-        defendRolls.sort(Collections.reverseOrder());
+        boolean conquered = !defending.removeArmy(defendLosses);
+        if (!conquered) {
+            // Defending still has units left
+            attacking.removeArmy(attackLosses);
+        }
+        if (journal != null) {
+            journal.attack(attacking, defending);
+        }
+        if (!gameViews.isEmpty()) {
+            log(LogEvent.attacked(attacking, defending, attackRolls, attackArmy, defendRolls, defendArmy,
+                    attackLosses, defendLosses, conquered));
+        }
+        if (!conquered) {
+            armiesChanged(attacking);
+            armiesChanged(defending);
+            phaseChanged();
+        }
+        return conquered;
+    }
 
-        printLine(attacking.getOwner().getName() + " is attacking " + defending.getName() + " with " + attacking.getName() + "!");
-        printLine("Attacker rolled " + attackRolls.size() + " dice: " + Arrays.toString(attackRolls.toArray()));
-        printLine("Defender rolled " + defendRolls.size() + " dice: " + Arrays.toString(defendRolls.toArray()) + "\n");
+    /**
+     * Repeats attack rounds until the defending territory falls or the attacking territory is down to a number
+     * of armies. The attacker always rolls as many dice as it can and so does the defender, unless it is a human
+     * player and PlayerDecisions have been set. Then it is asked once, before the first round, how many dice to
+     * defend with for the whole battle. No one is asked for input between rounds. The whole battle is summarized
+     * in a single log entry and a single view update
+     *
+     * @param attacking a territory that is attacking the territory defending
+     * @param defending a territory that is defending the territory attacking
+     * @param stopAt stop attacking once the attacking territory has this many armies or fewer, at least 1
+     * @return a boolean representing whether the attacker takes over the territory
+     */
+    public boolean blitz(Territory attacking, Territory defending, int stopAt) {
+        status = Status.ATTACK;
+        int rounds = 0;
+        int totalAttackLosses = 0;
+        int totalDefendLosses = 0;
+        boolean conquered = false;
+        // The dice are only counted for the log entry
+        boolean countFaces = !gameViews.isEmpty();
+        if (countFaces) {
+            Arrays.fill(blitzFaces, 0);
+        }
 
-        int attackLosses = 0;
-        int defendLosses = 0;
-        while (!attackRolls.isEmpty() && !defendRolls.isEmpty()) {
-            int attack = attackRolls.removeFirst();
-            int defend = defendRolls.removeFirst();
-
-            // Compare pairs with ties going to defender
-            if ((attack > defend)) {
-                defendLosses++;
+        int maxDefendDice = MAX_DEFEND_DICE;
+        if (playerDecisions != null && !defending.getOwner().isAI() && attacking.getNumArmies() > Math.max(1, stopAt)) {
+            maxDefendDice = chooseDefendArmies(defending);
+        }
+
+        while (!conquered && attacking.getNumArmies() > Math.max(1, stopAt)) {
+            int attackDice = Math.min(MAX_ATTACK_DICE, attacking.getNumArmies() - 1);
+            int defendDice = Math.min(maxDefendDice, defending.getNumArmies());
+            int attackLosses = rollRound(attackDice, defendDice);
+            if (countFaces) {
+                for (int i = 0; i < attackDice; i++) {
+                    blitzFaces[attackRolls[i] - 1]++;
+                }
+                for (int i = 0; i < defendDice; i++) {
+                    blitzFaces[LogEvent.DICE_FACES + defendRolls[i] - 1]++;
+                }
+            }
+            int defendLosses = Math.min(attackDice, defendDice) - attackLosses;
+            rounds++;
+
+            if (defending.removeArmy(defendLosses)) {
+                attacking.removeArmy(attackLosses);
+                totalAttackLosses += attackLosses;
+                totalDefendLosses += defendLosses;
             } else {
-                attackLosses++;
+                // Same as attack, the round that conquers the territory costs the attacker nothing
+                totalDefendLosses += defending.getNumArmies();
+                conquered = true;
             }
         }
 
-        if (defending.removeArmy(defendLosses)) {
-            // Defending still has units left
-            attacking.removeArmy(attackLosses);
+        if (journal != null) {
+            journal.attack(attacking, defending);
+        }
+        if (!gameViews.isEmpty()) {
+            log(LogEvent.blitzed(attacking, defending, rounds, totalAttackLosses, totalDefendLosses, conquered, blitzFaces));
+        }
+        if (!conquered) {
+            armiesChanged(attacking);
+            armiesChanged(defending);
+            phaseChanged();
+        }
+        return conquered;
+    }
 
-            printLine("The attacking territory lost " + attackLosses + " unit(s)! It has " + attacking.getNumArmies() + " unit(s) left.");
-            printLine("The defending territory lost " + defendLosses + " unit(s)! It has " + defending.getNumArmies() + " unit(s) left.\n");
-            updateView();
-            return false;
-        } else {
-            return true;
+    /**
+     * Rolls one round of dice and compares the highest pairs, with ties going to the defender
+     *
+     * @param attackDice the number of dice the attacker rolls
+     * @param defendDice the number of dice the defender rolls
+     * @return the number of armies the attacker loses, the defender loses the rest of the compared pairs
+     */
+    private int rollRound(int attackDice, int defendDice) {
+        rollDice(attackRolls, attackDice);
+        rollDice(defendRolls, defendDice);
+
+        int attackLosses = 0;
+        for (int i = 0; i < Math.min(attackDice, defendDice); i++) {
+            if (attackRolls[i] <= defendRolls[i]) {
+                attackLosses++;
+            }
         }
+        return attackLosses;
     }
 
     /**
@@ -163,8 +294,14 @@ public class Game implements Serializable {
         defendingPlayer.removeTerritory(defending);
         attacking.removeArmy(armyNum);
         defending.setNumArmies(armyNum);
-        printLine("The defending territory lost all units and was conquered by " + attacking.getOwner().getName() + "!");
-        printLine(armyNum + " armies were transferred to conquered land\n");
+        if (journal != null) {
+            journal.conquer(attacking, defending, armyNum);
+        }
+        armiesChanged(attacking);
+        if (!gameViews.isEmpty()) {
+            log(LogEvent.conquered(attacking.getOwner(), armyNum));
+            fireEvent(GameEvent.ownerChanged(defending, defendingPlayer));
+        }
         //CHEAT CODE -> winner tester
             /*List<Territory> lst = new ArrayList<Territory>(defendingPlayer.getAllLandOwned());
             for(Territory ter : lst){
@@ -173,14 +310,17 @@ public class Game implements Serializable {
 
         if (defendingPlayer.getAllLandOwnedSize() == 0) {
             // Defender has no territories left, they are eliminated
-            printLine(defendingPlayer.getName() + " has lost all their territories! They have been eliminated.\n");
             activePlayers.remove(defendingPlayer);
+            if (!gameViews.isEmpty()) {
+                log(LogEvent.eliminated(defendingPlayer));
+                fireEvent(GameEvent.playerEliminated(defendingPlayer));
+            }
             if (activePlayers.size()==1){
-                updateView();
+                phaseChanged();
                 return true;
             }
         }
-        updateView();
+        phaseChanged();
         return false;
     }
 
@@ -189,31 +329,82 @@ public class Game implements Serializable {
      */
     public void done() {
         status = Status.DONE;
-        printLine(currentPlayer.getName() + " has ended their turn\n");
+        if (!gameViews.isEmpty()) {
+            log(LogEvent.turnEnded(currentPlayer));
+        }
         currentPlayer = activePlayers.get((activePlayers.indexOf(currentPlayer) + 1) % activePlayers.size());
-        updateView();
-        while (currentPlayer.isAI() && activePlayers.size() > 1) {
-            AITurn();
+        turn++;
+        if (!gameViews.isEmpty()) {
+            fireEvent(GameEvent.turnChanged(currentPlayer));
+        }
+        phaseChanged();
+        if (journal != null) {
+            journal.done(this, random.getSeed());
+        }
+        // AI turns end by calling done() again, only the outermost call runs the loop so the stack does not grow
+        if (runningAITurns) {
+            return;
+        }
+        runningAITurns = true;
+        try {
+            while (currentPlayer.isAI() && activePlayers.size() > 1 && turn <= turnLimit) {
+                // Every AI turn is sent to the views on its own, even if this was called from inside a batch
+                flushEvents();
+                if (aiControl != null && !aiControl.awaitTurn()) {
+                    break;
+                }
+                AITurn();
+            }
+        } finally {
+            runningAITurns = false;
         }
     }
 
+    /**
+     * Determines the amount of armies the defending territory's owner wants to use. AI players, and human
+     * players when no PlayerDecisions have been set, defend with a random amount of armies
+     *
+     * @param defending Territory owned by defending player
+     * @return int the amount of armies to defend the territory with
+     */
+    public int chooseDefendArmies(Territory defending) {
+        int maxArmies = Math.min(MAX_DEFEND_DICE, defending.getNumArmies());
+        if (playerDecisions != null && !defending.getOwner().isAI()) {
+            // Show the defender the board as it is now, not as it was at the start of the batch
+            flushEvents();
+            return playerDecisions.chooseDefendArmies(defending, maxArmies);
+        }
+        return random.nextInt(maxArmies) + 1;
+    }
+
 
     /**
-     * Roll dice the specified number of times and return the list of results
+     * Roll dice the specified number of times into a reused array, sorted from highest to lowest with a fixed
+     * compare-exchange network so no allocation or boxing is needed
      *
-     * @param numDice The number of times to roll the dice
-     * @return The result of the rolls
+     * @param rolls The array to roll into, the first numDice entries are overwritten
+     * @param numDice The number of times to roll the dice, at most 3
      * @author Nicolas Tuttle
      */
-    private LinkedList<Integer> rollDice(int numDice) {
-        LinkedList<Integer> rolls = new LinkedList<>();
-        Random random = new Random();
-
+    private void rollDice(int[] rolls, int numDice) {
         for (int i = 0; i < numDice; i++) {
-            rolls.add(random.nextInt(6) + 1);
+            rolls[i] = random.nextInt(6) + 1;
+        }
+        if (numDice > 1) {
+            compareExchange(rolls, 0, 1);
         }
+        if (numDice > 2) {
+            compareExchange(rolls, 1, 2);
+            compareExchange(rolls, 0, 1);
+        }
+    }
 
-        return rolls;
+    private static void compareExchange(int[] rolls, int i, int j) {
+        if (rolls[i] < rolls[j]) {
+            int temp = rolls[i];
+            rolls[i] = rolls[j];
+            rolls[j] = temp;
+        }
     }
 
     /**
@@ -224,12 +415,7 @@ public class Game implements Serializable {
      * @author Nicolas Tuttle
      */
     public Optional<Territory> findTerritory(String id) {
-        // Return empty if the ID is not 2 letters followed by digits (invalid ID)
-        if (!(id.length() > 2 && continents.containsKey(id.substring(0, 2)) && id.substring(2).matches("^\\d+$")))
-            return Optional.empty();
-
-        Continent continent = continents.get(id.substring(0, 2));
-        return (continent == null) ? Optional.empty() : continent.getTerritoryById(Integer.parseInt(id.substring(2)) - 1);
+        return (graph == null) ? Optional.empty() : Optional.ofNullable(graph.getTerritory(id));
     }
 
     /**
@@ -239,46 +425,34 @@ public class Game implements Serializable {
      * players at random and randomly adds armies to territories.
      *
      * @param playerName The list of players to initialize
+     * @throws IllegalStateException if no map was imported and the default map cannot be loaded
      * @author Robell Gabriel
      */
     public void initialize(Map<String, Boolean> playerName) {
         if (continents.isEmpty()) {
-            try {
-                InputStream is = getClass().getResourceAsStream("DefaultMap.xml");
-                if (is != null) {
-                    importCustomMap(is);
-                } else {
-                    importCustomMap("DefaultMap.xml");
-                }
-            } catch (Exception e) {
-                // This should never happen if the DefaultMap file is correct!
-                JOptionPane.showMessageDialog(null, "Critical error. Shutting down." + e.getMessage());
-                System.exit(-1);
-            }
+            importDefaultMap();
         }
 
-        Stack<String> territoryID = new Stack<>(); //stack of temporary territory IDs
+        Stack<Territory> unassigned = new Stack<>(); //stack of territories not yet given to a player
         Stack<Integer> armyList2 = new Stack<>(); //stack of temporary armyList
 
-        //creates list of temporary Ids for each territory which is shuffled to player's get random territory
-        for (String id : continents.keySet()) {
-            for (int j = 1; j <= continents.get(id).getTerritoriesSize(); j++) {
-                territoryID.push("" + id + j);
-            }
+        //creates list of every territory which is shuffled to player's get random territory
+        for (int j = 0; j < graph.size(); j++) {
+            unassigned.push(graph.getTerritory(j));
         }
-        Collections.shuffle(territoryID);
+        random.shuffle(unassigned);
 
         //insert then shuffle list of Territory total for when there are 4 or 5 players
-        int equalTerrs = territoryID.size() / playerName.size();
+        int equalTerrs = unassigned.size() / playerName.size();
         ArrayList<Integer> terrCount = new ArrayList<>(playerName.size());
         for (int i = 0; i < playerName.size(); i++) {
             terrCount.add(equalTerrs);
         }
 
-        for (int leftover = territoryID.size() - playerName.size() * equalTerrs; leftover > 0; leftover--) {
+        for (int leftover = unassigned.size() - playerName.size() * equalTerrs; leftover > 0; leftover--) {
             terrCount.set(leftover, terrCount.get(leftover) + 1);
         }
-        Collections.shuffle(terrCount);
+        random.shuffle(terrCount);
 
         // Allocate armies per player dependant on number of players
         List<Integer> allocatedArmies = List.of(50, 35, 30, 25, 20);
@@ -287,7 +461,7 @@ public class Game implements Serializable {
         int i = 0;
         for (String name : playerName.keySet()) {
             activePlayers.add(new Player(name, playerName.get(name)));
-            initializePlayer(allocatedArmies.get(playerName.size() - 2), terrCount.get(i), i, territoryID, armyList2);
+            initializePlayer(allocatedArmies.get(playerName.size() - 2), terrCount.get(i), i, unassigned, armyList2);
 
             //add random amount of armies to each territory
             for (Territory territory : activePlayers.get(i).getAllLandOwned()) {
@@ -307,23 +481,24 @@ public class Game implements Serializable {
      * @param numOfTerr   int total number of territories for player
      * @param i           int used to loop between players
      * @param armyList2   Stack of randomly distributed armies
-     * @param territoryID Stack of valid territory ids
+     * @param unassigned  Stack of shuffled territories that have no owner yet
      *
      * @author Robell Gabriel
      */
-    private void initializePlayer(int numArmies, int numOfTerr, int i, Stack<String> territoryID, Stack<Integer> armyList2) {
+    private void initializePlayer(int numArmies, int numOfTerr, int i, Stack<Territory> unassigned, Stack<Integer> armyList2) {
         int[] armyList = new int[numOfTerr];
         numArmies -= numOfTerr;
         for (int z = 0; z < numOfTerr; z++) {
+            Territory territory = unassigned.pop();
             //add player to random territory
-            findTerritory(territoryID.peek()).orElseThrow().setPlayer(activePlayers.get(i));
+            territory.setPlayer(activePlayers.get(i));
             //add random territory to player
-            activePlayers.get(i).addTerritory(findTerritory(territoryID.pop()).orElseThrow());
+            activePlayers.get(i).addTerritory(territory);
             //generates a list of random numbers that all add up to
             //total number of armies player can own and total amount of random
             //numbers are equal to number of territories they can own
             if (z < (numOfTerr - 1)) {
-                armyList[z] = (int) (Math.random() * numArmies);
+                armyList[z] = (int) (random.nextDouble() * numArmies);
             }
         }
         armyList[numOfTerr - 1] = numArmies;
@@ -343,23 +518,31 @@ public class Game implements Serializable {
     /**
      * Handles all commands (Place, Attack, Move, Done) for AI,
      * being chosen at random based off threshold in max range
+     * The views are updated once with every change of the turn
      */
     public void AITurn() {
+        beginBatch();
+        try {
+            playAITurn();
+        } finally {
+            commitBatch();
+        }
+    }
+
+    /**
+     * Plays the commands of one AI turn
+     */
+    private void playAITurn() {
         status = Status.DISABLE;
-        Random rnd = new Random();
 
         // Place phase
-        int armiesRemaining = Math.max(3, currentPlayer.getAllLandOwnedSize() / 3);
-        for (Continent continent : continents.values()) {
-            Optional<Player> conqueror = continent.getConqueror();
-            if (conqueror.isPresent() && conqueror.get().equals(currentPlayer)) armiesRemaining += continent.BONUS_ARMIES;
-        }
+        int armiesRemaining = currentPlayer.getReinforcements();
 
-        List<Territory> landWithAdjacentEnemy = currentPlayer.getLandWithAdjacentEnemy(this);
+        List<Territory> landWithAdjacentEnemy = currentPlayer.getLandWithAdjacentEnemy();
         HashMap<String, Integer> toAdd = new HashMap<>();
         while (armiesRemaining > 0) {
-            Territory ter = landWithAdjacentEnemy.get(rnd.nextInt(landWithAdjacentEnemy.size()));
-            int toPlace = rnd.nextInt(armiesRemaining) + 1;
+            Territory ter = landWithAdjacentEnemy.get(random.nextInt(landWithAdjacentEnemy.size()));
+            int toPlace = random.nextInt(armiesRemaining) + 1;
             if (toAdd.containsKey(ter.getId())) {
                 toPlace += toAdd.get(ter.getId());
             }
@@ -372,107 +555,329 @@ public class Game implements Serializable {
         int rng = AI_THRESHOLD - 1;
 
         while (!currentPlayer.allLandOwnedHas1Army()) {
-            if (rng >= AI_THRESHOLD && currentPlayer.allLandOwnedAdjacentIsFriendly(this)) {
+            if (rng >= AI_THRESHOLD && currentPlayer.allLandOwnedAdjacentIsFriendly()) {
                 // Move phase
-                List<Territory> playerTerrs = currentPlayer.getLandWithAdjacentAlly(this)
+                List<Territory> playerTerrs = currentPlayer.getLandWithAdjacentAlly()
                         .stream()
                         .filter(territory -> territory.getNumArmies() > 1)
                         .collect(Collectors.toList());
 
 
-                rng = rnd.nextInt(playerTerrs.size());
+                rng = random.nextInt(playerTerrs.size());
                 Territory moveFrom;
                 do {
                     moveFrom = playerTerrs.get(rng);
                 } while (moveFrom.getNumArmies() < 2);
 
-                List<Territory> adjacentTerrs = moveFrom.getAdjacentFriendly(this);
-                rng = rnd.nextInt(adjacentTerrs.size());
-                Territory moveTo = adjacentTerrs.get(rng);
+                // Walk the edges to the chosen friendly neighbour rather than collecting them all
+                rng = random.nextInt(moveFrom.getFriendlyAdjacentCount());
+                Territory moveTo = null;
+                for (int edge = graph.getAdjacentStart(moveFrom.getIndex()); moveTo == null; edge++) {
+                    Territory adjacent = graph.getTerritory(graph.getAdjacent(edge));
+                    if (adjacent.getOwner() == currentPlayer && rng-- == 0) {
+                        moveTo = adjacent;
+                    }
+                }
 
-                int armiesToMove = rnd.nextInt(moveFrom.getNumArmies() - 1) + 1;
+                int armiesToMove = random.nextInt(moveFrom.getNumArmies() - 1) + 1;
                 movePhase(armiesToMove, moveFrom, moveTo);
                 return;
-            } else if (currentPlayer.allLandOwnedAdjacentIsEnemy(this)) {
+            } else if (currentPlayer.allLandOwnedAdjacentIsEnemy()) {
                 // Attack
-                List<Territory> playerTerrs = currentPlayer.getLandWithAdjacentEnemy(this)
+                List<Territory> playerTerrs = currentPlayer.getLandWithAdjacentEnemy()
                         .stream()
                         .filter(territory -> territory.getNumArmies() > 1)
                         .collect(Collectors.toList());
-                Territory attacking = playerTerrs.get(rnd.nextInt(playerTerrs.size()));
-
-                List<Territory> adjacentTerrs = attacking.getAdjacentEnemy(this);
-                Territory defending = adjacentTerrs.get(rnd.nextInt(adjacentTerrs.size()));
+                Territory attacking = playerTerrs.get(random.nextInt(playerTerrs.size()));
+
+                // Attack the adjacent enemy with the best odds of being conquered by a blitz that holds back half
+                // of the attacking armies. Stopping at stopAt armies is a battle fought with the armies above it, plus
+                // the one that stays behind, so it is ranked as that
+                int stopAt = attacking.getNumArmies() / 2;
+                int committed = attacking.getNumArmies() - Math.max(1, stopAt) + 1;
+                Territory defending = null;
+                double bestOdds = -1;
+                for (int edge = graph.getAdjacentStart(attacking.getIndex()); edge < graph.getAdjacentEnd(attacking.getIndex()); edge++) {
+                    Territory candidate = graph.getTerritory(graph.getAdjacent(edge));
+                    if (candidate.getOwner() == currentPlayer) {
+                        continue;
+                    }
+                    double odds = BattleOdds.winProbability(committed, candidate.getNumArmies());
+                    if (odds > bestOdds) {
+                        defending = candidate;
+                        bestOdds = odds;
+                    }
+                }
 
-                int max = Math.min(attacking.getNumArmies() - 1, 3);
-                int attackArmyNum = rnd.nextInt(max) + 1;
-                int defendArmyNum = GameController.AIOrUserDefendArmies(defending);
+                int attackArmyNum;
+                boolean conquered;
+                if (defending.getOwner().isAI() || playerDecisions == null) {
+                    // Blitz, holding back half of the attacking armies
+                    conquered = blitz(attacking, defending, stopAt);
+                    attackArmyNum = Math.min(attacking.getNumArmies() - 1, MAX_ATTACK_DICE);
+                } else {
+                    // Human defenders choose their dice every round
+                    attackArmyNum = random.nextInt(Math.min(attacking.getNumArmies() - 1, MAX_ATTACK_DICE)) + 1;
+                    conquered = attack(attacking, attackArmyNum, defending, chooseDefendArmies(defending));
+                }
 
-                if (attack(attacking, attackArmyNum, defending, defendArmyNum)) {
-                    // Transfer random amount of armies for AI
-                    int transferNum = rnd.nextInt(attacking.getNumArmies() - attackArmyNum) + attackArmyNum;
+                if (conquered) {
+                    // Transfer random amount of armies for AI, at least as many as the dice rolled in the last round
+                    int transferNum = random.nextInt(attacking.getNumArmies() - attackArmyNum) + attackArmyNum;
                     if (attackWon(attacking, defending, transferNum)){
                         // AI has won the game
                         return;
                     }
                 }
             }
-            rng = rnd.nextInt(AI_MAX);
+            rng = random.nextInt(AI_MAX);
         }
         done();
     }
 
+    /**
+     * Places armies read from a journal, without updating the views
+     *
+     * @param territory the territory the armies were placed on
+     * @param armies the number of armies placed
+     */
+    public void replayPlace(Territory territory, int armies) {
+        status = Status.PLACE;
+        territory.addArmy(armies);
+    }
+
+    /**
+     * Sets the outcome of an attack or blitz read from a journal, without rolling dice or updating the views
+     *
+     * @param attacking the attacking territory
+     * @param attackingArmies the armies the attacking territory had left
+     * @param defending the defending territory
+     * @param defendingArmies the armies the defending territory had left
+     */
+    public void replayAttack(Territory attacking, int attackingArmies, Territory defending, int defendingArmies) {
+        status = Status.ATTACK;
+        attacking.setNumArmies(attackingArmies);
+        defending.setNumArmies(defendingArmies);
+    }
+
+    /**
+     * Moves armies read from a journal, without ending the turn or updating the views
+     *
+     * @param from the territory the armies were moved from
+     * @param to the territory the armies were moved to
+     * @param armies the number of armies moved
+     */
+    public void replayMove(Territory from, Territory to, int armies) {
+        from.removeArmy(armies);
+        to.addArmy(armies);
+    }
+
+    /**
+     * Ends a turn read from a journal, without playing AI turns or updating the views
+     *
+     * @param randomSeed the seed the random number generator had after the turn ended
+     */
+    public void replayDone(long randomSeed) {
+        status = Status.DONE;
+        currentPlayer = activePlayers.get((activePlayers.indexOf(currentPlayer) + 1) % activePlayers.size());
+        turn++;
+        random = new GameRandom(randomSeed, random.getGamma());
+    }
+
     /**
      * Saves current game state into a file
      *
      * @throws IOException if file cannot save
      */
     public void saveGame() throws IOException {
-        FileOutputStream gameSaveFile = new FileOutputStream("RISK.sav");
-        ObjectOutputStream risk = new ObjectOutputStream(gameSaveFile);
-        risk.writeObject(this);
-        risk.close();
-        gameSaveFile.close();
+        snapshot().save(Paths.get(SAVE_FILE));
     }
 
     /**
      * Loads a saved game state from a file into current game/new game
      *
-     * @throws IOException if file cannot load
-     * @throws ClassNotFoundException if file's object cannot be added
+     * @throws IOException if file cannot load, or the map the game was played on cannot be imported
      */
-    public void loadGame() throws IOException, ClassNotFoundException {
-        FileInputStream gameFile = new FileInputStream("RISK.sav");
-        ObjectInputStream gameObjin = new ObjectInputStream(gameFile);
-        Game risk = (Game) gameObjin.readObject();
-        currentPlayer = risk.getCurrentPlayer();
-        activePlayers = risk.getActivePlayers();
-        continents = risk.getContinents();
+    public void loadGame() throws IOException {
+        restore(GameSnapshot.load(Paths.get(SAVE_FILE)));
     }
 
     /**
-     * Update all the views with the given code
-     * Also calls AI turn if player is an AI
+     * Copies the state of the game that changes as it is played, which takes time proportional to the number of
+     * territories. The map is only referenced by its fingerprint and file, or by its key in the map cache if it was
+     * imported from a stream
      *
+     * @return The snapshot
+     * @throws IllegalStateException if the map was imported from a stream without a map cache, so it could not be
+     *                               imported again to restore the snapshot
      */
-    private void updateView(){
-        for (GameView gv : gameViews){
-            if (currentPlayer.isAI() & status != Status.DONE & status != Status.ATTACK) {
-                if (status != Status.DISABLE) {
-                    status = Status.PASS;
+    public GameSnapshot snapshot() {
+        if (mapHash != null && mapCache == null) {
+            throw new IllegalStateException("A game on a map imported from a stream can only be saved with a map cache");
+        }
+        String[] names = new String[activePlayers.size()];
+        boolean[] ai = new boolean[names.length];
+        Map<Player, Integer> playerIndices = new IdentityHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            Player player = activePlayers.get(i);
+            names[i] = player.getName();
+            ai[i] = player.isAI();
+            playerIndices.put(player, i);
+        }
+        byte[] owners = new byte[graph.size()];
+        int[] armies = new int[graph.size()];
+        for (int i = 0; i < owners.length; i++) {
+            Territory territory = graph.getTerritory(i);
+            owners[i] = (byte) (int) playerIndices.get(territory.getOwner());
+            armies[i] = territory.getNumArmies();
+        }
+        return new GameSnapshot(graph.getFingerprint(), mapFile, mapHash, names, ai, owners, armies,
+                playerIndices.get(currentPlayer), turn, turnLimit, status, random.getSeed(), random.getGamma());
+    }
+
+    /**
+     * Replaces the players and the state of the map with a snapshot. The map is imported again from the file
+     * the snapshot names, or loaded from the map cache if it was imported from a stream, if the map in use is a
+     * different one. The game is left as it was if the snapshot cannot be restored
+     *
+     * @param snapshot The snapshot to restore
+     * @throws IOException if the snapshot's map cannot be imported or does not match the snapshot
+     */
+    public void restore(GameSnapshot snapshot) throws IOException {
+        MapCache.CompiledMap map = null;
+        if (graph == null || graph.getFingerprint() != snapshot.getMapFingerprint()) {
+            if (snapshot.getMapHash() != null) {
+                map = mapCache == null ? null : mapCache.load(snapshot.getMapHash());
+                if (map == null) {
+                    throw new IOException("The map of the saved game was imported from a stream and is not in the "
+                            + "map cache");
+                }
+            } else {
+                try {
+                    map = compileMap(readMap(snapshot.getMapFile()), null);
+                } catch (ParserConfigurationException | SAXException e) {
+                    throw new IOException("Could not import the map of the saved game", e);
                 }
             }
-            gv.updateView(this);
         }
+        TerritoryGraph restoredGraph = map == null ? graph : map.getGraph();
+        if (restoredGraph.getFingerprint() != snapshot.getMapFingerprint()
+                || restoredGraph.size() != snapshot.getTerritoryCount()) {
+            throw new IOException("The saved game was played on a different map");
+        }
+        if (map != null) {
+            graph = restoredGraph;
+            continents = map.getContinents();
+            mapFile = snapshot.getMapFile();
+            mapHash = snapshot.getMapHash();
+        }
+
+        List<Player> players = new LinkedList<>();
+        for (int i = 0; i < snapshot.getPlayerCount(); i++) {
+            players.add(new Player(snapshot.getPlayerName(i), snapshot.isPlayerAI(i)));
+        }
+        // Clear every owner first, so the continents and frontiers are rebuilt from an empty map
+        for (int i = 0; i < graph.size(); i++) {
+            graph.getTerritory(i).setPlayer(null);
+        }
+        for (int i = 0; i < graph.size(); i++) {
+            Territory territory = graph.getTerritory(i);
+            Player owner = players.get(snapshot.getOwner(i));
+            territory.setNumArmies(snapshot.getArmies(i));
+            territory.setPlayer(owner);
+            owner.addTerritory(territory);
+        }
+        activePlayers = players;
+        currentPlayer = players.get(snapshot.getCurrentPlayer());
+        turn = snapshot.getTurn();
+        turnLimit = snapshot.getTurnLimit();
+        status = snapshot.getStatus();
+        random = new GameRandom(snapshot.getRandomSeed(), snapshot.getRandomGamma());
+        pendingEvents.clear();
     }
 
     /**
-     * Print a line to the action log
-     * @param message The message to print to the action log
+     * Start collecting changes instead of sending them to the views. Batches can be nested, the views are
+     * updated once with the merged changes when the outermost batch is committed
      */
-    private void printLine(String message) {
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * End a batch started with beginBatch, updating the views if it is the outermost one
+     * @throws IllegalStateException if no batch was started
+     */
+    public void commitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch to commit");
+        }
+        if (--batchDepth == 0) {
+            flushEvents();
+        }
+    }
+
+    /**
+     * Tell all the views that the game's status changed
+     * The status is PASS while an AI player is placing or moving
+     * Every command ends with a phase change, so this also sends the command's changes unless it is part of a batch
+     *
+     */
+    private void phaseChanged(){
+        if (gameViews.isEmpty()) {
+            return;
+        }
+        if (currentPlayer.isAI() & status != Status.DONE & status != Status.ATTACK) {
+            if (status != Status.DISABLE) {
+                status = Status.PASS;
+            }
+        }
+        fireEvent(GameEvent.phaseChanged(status));
+        if (batchDepth == 0) {
+            flushEvents();
+        }
+    }
+
+    /**
+     * Tell all the views that the number of armies in a territory changed
+     * @param territory The territory that changed
+     */
+    private void armiesChanged(Territory territory) {
+        if (!gameViews.isEmpty()) {
+            fireEvent(GameEvent.armiesChanged(territory));
+        }
+    }
+
+    /**
+     * Queue an event for the views
+     * @param event The change to send
+     */
+    private void fireEvent(GameEvent event) {
+        pendingEvents.add(event);
+    }
+
+    /**
+     * Send the queued events to all the views, merged so each change is only applied once
+     */
+    private void flushEvents() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        List<GameEvent> events = GameEvent.merge(pendingEvents);
+        pendingEvents.clear();
+        for (GameView gv : gameViews) {
+            gv.handleEvents(events);
+        }
+    }
+
+    /**
+     * Add an entry to the action log of every view. Callers check that there are views before creating the entry,
+     * so games without views create no entries
+     * @param event The entry
+     */
+    private void log(LogEvent event) {
         for (GameView gv : gameViews){
-            gv.printLine(message);
+            gv.log(event);
         }
     }
 
@@ -484,6 +889,22 @@ public class Game implements Serializable {
         return currentPlayer;
     }
 
+    /**
+     * Get the current turn number. Every player's turn counts as one, starting from 1
+     * @return The current turn
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Stop running AI turns once the turn number passes a limit, so that AI-only games always end
+     * @param turnLimit The last turn that AI players will play
+     */
+    public void setTurnLimit(int turnLimit) {
+        this.turnLimit = turnLimit;
+    }
+
     /**
      * get the status of the game
      * @return enum Status representing the status of the game
@@ -500,6 +921,14 @@ public class Game implements Serializable {
         return continents;
     }
 
+    /**
+     * Get the compiled, integer-indexed graph of the current map
+     * @return The map's territory graph, or null if no map has been imported
+     */
+    public TerritoryGraph getGraph() {
+        return graph;
+    }
+
     /**
      * Get a list of all players remaining in the game
      * @return The list of active players
@@ -517,19 +946,54 @@ public class Game implements Serializable {
     }
 
     /**
-     * Import a custom map from an XML file
+     * Set how human players are asked for decisions outside of their own turn
+     * @param playerDecisions The decision source for human players, or null to decide for them as an AI would
+     */
+    public void setPlayerDecisions(PlayerDecisions playerDecisions) {
+        this.playerDecisions = playerDecisions;
+    }
+
+    /**
+     * Set the cache maps are imported from, so a map's XML is only parsed and validated the first time it is
+     * imported
+     * @param mapCache The cache, or null to parse every map imported
+     */
+    public void setMapCache(MapCache mapCache) {
+        this.mapCache = mapCache;
+    }
+
+    /**
+     * Set the journal every command of the game is recorded in
+     * @param journal The journal, or null to stop recording
+     */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Set the control that can pause or cancel AI turns from another thread
+     * @param aiControl The control checked before every AI turn, or null to always play AI turns
+     */
+    public void setAIControl(AIControl aiControl) {
+        this.aiControl = aiControl;
+    }
+
+    /**
+     * Import a custom map from an XML file. The game can only be saved if a map cache is set, as the map is
+     * referenced by its key in the cache
      * @param file The XML file with the custom map
      * @throws ParserConfigurationException If the parser is incorrectly configured
      * @throws SAXException If the custom map is invalid
      * @throws IOException If the file cannot be opened
      */
     public void importCustomMap(InputStream file) throws ParserConfigurationException, SAXException, IOException {
-        SAXParserFactory spf = SAXParserFactory.newInstance();
-        SAXParser p = spf.newSAXParser();
-
-        CustomMapXMLHandler handler = new CustomMapXMLHandler();
-        p.parse(file, handler);
-        continents = handler.getCustomMap();
+        byte[] xml = file.readAllBytes();
+        String hash = MapCache.hash(xml);
+        MapCache.CompiledMap map = compileMap(xml, hash);
+        continents = map.getContinents();
+        graph = map.getGraph();
+        mapFile = null;
+        mapHash = hash;
     }
 
     /**
@@ -540,12 +1004,86 @@ public class Game implements Serializable {
      * @throws IOException If the file cannot be opened
      */
     public void importCustomMap(String filename) throws ParserConfigurationException, SAXException, IOException {
+        MapCache.CompiledMap map = compileMap(readMap(filename), null);
+        continents = map.getContinents();
+        graph = map.getGraph();
+        mapFile = filename;
+        mapHash = null;
+    }
+
+    /**
+     * Compile a map from its XML without changing the game, from the map cache if it was compiled before,
+     * otherwise by parsing and validating the XML and then adding it to the cache
+     * @param xml The XML of the map
+     * @param hash The map's key in the cache, or null to hash the XML if there is a cache
+     * @return The map's continents and territories
+     */
+    private MapCache.CompiledMap compileMap(byte[] xml, String hash)
+            throws ParserConfigurationException, SAXException, IOException {
+        if (mapCache != null) {
+            if (hash == null) {
+                hash = MapCache.hash(xml);
+            }
+            try {
+                MapCache.CompiledMap compiled = mapCache.load(hash);
+                if (compiled != null) {
+                    return compiled;
+                }
+            } catch (IOException e) {
+                // A damaged compiled map is compiled again from the XML
+            }
+        }
+
         SAXParserFactory spf = SAXParserFactory.newInstance();
         SAXParser p = spf.newSAXParser();
 
         CustomMapXMLHandler handler = new CustomMapXMLHandler();
-        p.parse(filename, handler);
-        continents = handler.getCustomMap();
+        p.parse(new ByteArrayInputStream(xml), handler);
+        MapCache.CompiledMap map = new MapCache.CompiledMap(handler.getCustomMap());
+        if (mapCache != null) {
+            try {
+                mapCache.store(hash, map.getContinents(), map.getGraph());
+            } catch (IOException e) {
+                // The game does not need the cache, the map is compiled again next time
+                e.printStackTrace();
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Read the XML of a map
+     * @param filename The map's file, or null for the default map, which is read from the classpath if it is
+     *                 packaged with the game or from the working directory
+     * @return The XML
+     */
+    private byte[] readMap(String filename) throws IOException {
+        if (filename != null) {
+            return Files.readAllBytes(Paths.get(filename));
+        }
+        try (InputStream is = getClass().getResourceAsStream("DefaultMap.xml")) {
+            if (is != null) {
+                return is.readAllBytes();
+            }
+        }
+        return Files.readAllBytes(Paths.get("DefaultMap.xml"));
+    }
+
+    /**
+     * Import the default map
+     * @throws IllegalStateException if the default map cannot be loaded
+     */
+    private void importDefaultMap() {
+        try {
+            MapCache.CompiledMap map = compileMap(readMap(null), null);
+            continents = map.getContinents();
+            graph = map.getGraph();
+            mapFile = null;
+            mapHash = null;
+        } catch (Exception e) {
+            // This should never happen if the DefaultMap file is correct!
+            throw new IllegalStateException("Could not load the default map: " + e.getMessage(), e);
+        }
     }
 
     @Override
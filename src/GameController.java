@@ -1,20 +1,38 @@
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
-import java.util.Random;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 /**
  * The GameController for the GUI component of the game Risk, handles the user inputs which updates the GameModel and GameFrame.
  * This class prompts panels for when command buttons are clicked
+ * Commands that can lead to AI turns are run on a background thread so the window stays responsive
  *
  * @author Nicolas Tuttle, Phuc La, Robell Gabriel, Jacob Schmidt
  */
 
-public class GameController implements ActionListener {
+public class GameController implements ActionListener, ChangeListener, PlayerDecisions {
     private final Game game;
     private final GameFrame gameView;
     public static final String[] options = {"OK"};
+    public static final long[] TURN_DELAYS = {500, 50, 0}; // milliseconds per AI turn at 1x, 10x and uncapped speed
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "AI turns");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private AIControl aiControl = new AIControl();
+    private Future<?> aiTurns;
+    private GameJournal journal; //null if the journal could not be opened
+    private final Autosave autosave;
+    private String saveSlot = "Game 1"; //the slot the game was last saved to or loaded from
 
     /**
      * constructor for gameController class
@@ -24,6 +42,82 @@ public class GameController implements ActionListener {
     public GameController(Game game,GameFrame gameView) {
         this.game = game;
         this.gameView = gameView;
+        game.setAIControl(aiControl);
+        autosave = new Autosave(game, gameView.getSaveCatalog(), Autosave.AUTOSAVE_SLOT, Autosave.DEFAULT_ACTIONS,
+                Autosave.DEFAULT_SECONDS);
+        game.addGameView(autosave);
+        try {
+            // The last session's journal is kept for a postmortem of a crash or an odd game
+            GameJournal.rotate(Paths.get(GameJournal.JOURNAL_FILE), GameJournal.KEPT_JOURNALS);
+            journal = new GameJournal(Paths.get(GameJournal.JOURNAL_FILE), game, GameJournal.DEFAULT_SNAPSHOT_INTERVAL);
+            game.setJournal(journal);
+        } catch (IOException e) {
+            // The game can be played without a journal
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs a command that can lead to AI turns on the background thread. The buttons are disabled until the game
+     * is back to a human player
+     * @param command the command to run
+     */
+    public void runAITurns(Runnable command) {
+        aiControl.resume();
+        gameView.setAIRunning(true, false);
+        aiTurns = aiExecutor.submit(() -> {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                throw e;
+            } finally {
+                SwingUtilities.invokeLater(() -> gameView.setAIRunning(false, false));
+            }
+        });
+    }
+
+    /**
+     * Checks if AI turns are being played on the background thread
+     * @return true if AI turns are running, false otherwise
+     */
+    public boolean isAIRunning() {
+        return aiTurns != null && !aiTurns.isDone();
+    }
+
+    /**
+     * Loads a saved game, first cancelling any AI turns that are running
+     * @param slot the save slot to load
+     */
+    private void loadGame(String slot) {
+        if (isAIRunning()) {
+            // The AI finishes the turn it is playing, then the load runs on the EDT
+            aiControl.cancel();
+            aiExecutor.submit(() -> SwingUtilities.invokeLater(() -> loadGame(slot)));
+            return;
+        }
+        long turnDelay = aiControl.getTurnDelay();
+        aiControl = new AIControl();
+        aiControl.setTurnDelay(turnDelay);
+        game.setAIControl(aiControl);
+        try {
+            game.restore(gameView.getSaveCatalog().load(slot));
+        } catch (IOException exception) {
+            JOptionPane.showMessageDialog(gameView, "The saved game could not be loaded");
+            exception.printStackTrace();
+            return;
+        }
+        saveSlot = slot;
+        gameView.updateView(game);
+        autosave.updateView(game);
+        try {
+            gameView.loadActionLog(slot);
+            if (journal != null) {
+                journal.restart(game);
+            }
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
     }
 
     /**
@@ -37,20 +131,40 @@ public class GameController implements ActionListener {
         //if place button is pressed pull up a PlacePanel to get input from user and update model accordingly
         switch (e.getActionCommand()) {
             case "Load Game":{
-                try {
-                    game.loadGame();
-                    gameView.updateView(game);
-                    gameView.loadActionLog();
-                } catch (IOException | ClassNotFoundException exception) {
-                    JOptionPane.showMessageDialog(gameView, "There is no saved game");
-                    exception.printStackTrace();
+                String slot = gameView.chooseSaveSlot();
+                if (slot != null) {
+                    loadGame(slot);
                 }
                 break;
             }
             case "Save Game":{
+                if (isAIRunning()) {
+                    JOptionPane.showMessageDialog(gameView, "Wait for the AI players to finish their turns before saving");
+                    break;
+                }
+                String slot = (String) JOptionPane.showInputDialog(gameView, "Save slot name:", "Save Game",
+                        JOptionPane.PLAIN_MESSAGE, null, null, saveSlot);
+                if (slot == null) {
+                    break;
+                }
+                if (!SaveCatalog.isValidSlot(slot)) {
+                    JOptionPane.showMessageDialog(gameView, "Save slot names are up to " + SaveCatalog.NAME_BYTES
+                            + " letters, digits, spaces, '-' and '_'");
+                    break;
+                }
+                saveSlot = slot;
+                // The game is copied here and written on the autosave thread, so the window does not wait for the disk
+                autosave.saveTo(slot).whenComplete((result, exception) -> {
+                    if (exception != null) {
+                        exception.printStackTrace();
+                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(gameView, "The game could not be saved"));
+                    }
+                });
                 try {
-                    game.saveGame();
-                    gameView.saveActionLog();
+                    gameView.saveActionLog(slot);
+                    if (journal != null) {
+                        journal.force();
+                    }
                 } catch (IOException ioException) {
                     ioException.printStackTrace();
                 }
@@ -58,7 +172,7 @@ public class GameController implements ActionListener {
             }
             case "Place": {
                 int result;
-                PlacePanel plp = new PlacePanel(player, game.getContinents());
+                PlacePanel plp = new PlacePanel(player);
                 do {
                     result = JOptionPane.showOptionDialog(gameView,
                             plp,
@@ -95,7 +209,8 @@ public class GameController implements ActionListener {
                     );
                 }
                 if (result != JOptionPane.CANCEL_OPTION) {
-                    game.movePhase(mp.getArmiesToMove(), mp.getMoveFrom(), mp.getMoveTo());
+                    // Moving ends the turn
+                    runAITurns(() -> game.movePhase(mp.getArmiesToMove(), mp.getMoveFrom(), mp.getMoveTo()));
                 }
                 break;
             }
@@ -124,12 +239,19 @@ public class GameController implements ActionListener {
                     Territory defending = ap.getDefendingTerritory();
                     Territory attacking = ap.getAttackingTerritory();
 
-                    int armyNum = AIOrUserDefendArmies(defending);
-
-                    boolean won = game.attack(attacking, ap.getArmyNum(), defending, armyNum);
+                    boolean won;
+                    int minTransfer;
+                    if (ap.isBlitz()) {
+                        won = game.blitz(attacking, defending, ap.getBlitzStopAt());
+                        minTransfer = Math.min(attacking.getNumArmies() - 1, Game.MAX_ATTACK_DICE);
+                    } else {
+                        int armyNum = game.chooseDefendArmies(defending);
+                        won = game.attack(attacking, ap.getArmyNum(), defending, armyNum);
+                        minTransfer = ap.getArmyNum();
+                    }
                     if (won) {
                         result = JOptionPane.CLOSED_OPTION;
-                        ArmySelectPanel transfer = new ArmySelectPanel(ap.getArmyNum(), attacking.getNumArmies() - 1);
+                        ArmySelectPanel transfer = new ArmySelectPanel(minTransfer, attacking.getNumArmies() - 1);
 
                         while (result == JOptionPane.CLOSED_OPTION) {
                             result = JOptionPane.showOptionDialog(
@@ -149,40 +271,67 @@ public class GameController implements ActionListener {
                 break;
             }
             case "Done":
-                game.done();
+                runAITurns(game::done);
+                break;
+            case "Pause AI":
+                if (aiControl.isPaused()) {
+                    aiControl.resume();
+                } else {
+                    aiControl.pause();
+                }
+                gameView.setAIRunning(isAIRunning(), aiControl.isPaused());
                 break;
         }
     }
 
     /**
-     * Determines the amount of armies defending territory's owner wants to use,
-     * depending if owner is the User or AI
-     * @param defending Territory owned by defending player
-     * @return int the amount of armies User/AI wants to defend territory with
+     * Changes how fast AI turns are played when the speed slider is moved
+     * @param e the change of the slider, whose value is an index into TURN_DELAYS
      */
-    public static int AIOrUserDefendArmies(Territory defending) {
-        //opens up panels if player defending territory isn't an AI
-        if (!defending.getOwner().isAI()){
-            ArmySelectPanel dp = new ArmySelectPanel(1, defending.getNumArmies() > 1 ? 2 : 1);
-            int result = JOptionPane.CLOSED_OPTION;
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        JSlider speed = (JSlider) e.getSource();
+        if (!speed.getValueIsAdjusting()) {
+            aiControl.setTurnDelay(TURN_DELAYS[speed.getValue()]);
+        }
+    }
 
-            while (result == JOptionPane.CLOSED_OPTION) {
-                result = JOptionPane.showOptionDialog(
-                        null,
-                        dp,
-                        defending.getOwner().getName()+", select a number of armies to defend!",
-                        JOptionPane.OK_CANCEL_OPTION,
-                        JOptionPane.QUESTION_MESSAGE,
-                        null,
-                        options,
-                        options[0]
-                );
+    /**
+     * Opens a panel asking the human owner of the defending territory how many armies to defend with
+     * @param defending Territory owned by defending player
+     * @param maxArmies the most armies the owner may defend with
+     * @return int the amount of armies the User wants to defend territory with
+     */
+    @Override
+    public int chooseDefendArmies(Territory defending, int maxArmies) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            // Asked by an AI attacking on the background thread, the dialog has to be shown on the EDT
+            int[] choice = new int[1];
+            try {
+                SwingUtilities.invokeAndWait(() -> choice[0] = chooseDefendArmies(defending, maxArmies));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return maxArmies;
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Could not ask for defending armies", e.getCause());
             }
-            return dp.getArmyNum();
-        }else{
-            //defend with random amount of armies for AI
-            Random rnd = new Random();
-            return rnd.nextInt(Math.min(2, defending.getNumArmies())) + 1;
+            return choice[0];
+        }
+        ArmySelectPanel dp = new ArmySelectPanel(1, maxArmies);
+        int result = JOptionPane.CLOSED_OPTION;
+
+        while (result == JOptionPane.CLOSED_OPTION) {
+            result = JOptionPane.showOptionDialog(
+                    gameView,
+                    dp,
+                    defending.getOwner().getName()+", select a number of armies to defend!",
+                    JOptionPane.OK_CANCEL_OPTION,
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    options,
+                    options[0]
+            );
         }
+        return dp.getArmyNum();
     }
 }
@@ -0,0 +1,184 @@
+import java.util.*;
+
+/**
+ * A single change to the state of a Game, sent to every GameView so it only has to update what changed
+ * instead of redrawing the whole game. Territory events carry the owner and armies at the time they were
+ * created, so a view can apply them on another thread while the game keeps changing.
+ */
+public class GameEvent {
+    public enum Type {ARMIES_CHANGED, OWNER_CHANGED, PLAYER_ELIMINATED, TURN_CHANGED, PHASE_CHANGED}
+
+    private final Type type;
+    private final Territory territory;
+    private final Player player;
+    private final Player previousOwner;
+    private final int armies;
+    private final Game.Status status;
+
+    private GameEvent(Type type, Territory territory, Player player, Player previousOwner, int armies, Game.Status status) {
+        this.type = type;
+        this.territory = territory;
+        this.player = player;
+        this.previousOwner = previousOwner;
+        this.armies = armies;
+        this.status = status;
+    }
+
+    /**
+     * Create an event for a territory whose number of armies changed
+     * @param territory The territory that changed
+     * @return The event
+     */
+    public static GameEvent armiesChanged(Territory territory) {
+        return new GameEvent(Type.ARMIES_CHANGED, territory, territory.getOwner(), null, territory.getNumArmies(), null);
+    }
+
+    /**
+     * Create an event for a territory that was conquered
+     * @param territory The territory that changed owner
+     * @param previousOwner The territory's owner before it was conquered
+     * @return The event
+     */
+    public static GameEvent ownerChanged(Territory territory, Player previousOwner) {
+        return new GameEvent(Type.OWNER_CHANGED, territory, territory.getOwner(), previousOwner, territory.getNumArmies(), null);
+    }
+
+    /**
+     * Create an event for a player who lost their last territory
+     * @param player The eliminated player
+     * @return The event
+     */
+    public static GameEvent playerEliminated(Player player) {
+        return new GameEvent(Type.PLAYER_ELIMINATED, null, player, null, 0, null);
+    }
+
+    /**
+     * Create an event for the start of a new player's turn
+     * @param player The player whose turn it now is
+     * @return The event
+     */
+    public static GameEvent turnChanged(Player player) {
+        return new GameEvent(Type.TURN_CHANGED, null, player, null, 0, null);
+    }
+
+    /**
+     * Create an event for a change of the game's status
+     * @param status The new status
+     * @return The event
+     */
+    public static GameEvent phaseChanged(Game.Status status) {
+        return new GameEvent(Type.PHASE_CHANGED, null, null, null, 0, status);
+    }
+
+    /**
+     * Get the type of change
+     * @return The event type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the territory that changed
+     * @return The territory, or null if the event is not about a territory
+     */
+    public Territory getTerritory() {
+        return territory;
+    }
+
+    /**
+     * Get the player the event is about: the territory's owner when the event was created, the eliminated player
+     * or the player whose turn it is
+     * @return The player, or null for phase changes
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the owner of a conquered territory before it was conquered
+     * @return The previous owner, or null if the event is not an owner change
+     */
+    public Player getPreviousOwner() {
+        return previousOwner;
+    }
+
+    /**
+     * Get the number of armies in the territory when the event was created
+     * @return The armies, or 0 if the event is not about a territory
+     */
+    public int getArmies() {
+        return armies;
+    }
+
+    /**
+     * Get the game's new status
+     * @return The status, or null if the event is not a phase change
+     */
+    public Game.Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return type + (territory != null ? " " + territory.getId() : "") + (player != null ? " " + player.getName() : "")
+                + (status != null ? " " + status : "");
+    }
+
+    /**
+     * Merges the events of one batch so every change is reported once: one event per territory (an owner change
+     * if it was conquered at any point, keeping its first previous owner), every elimination, and only the last
+     * turn and phase change. Territory events come first and the phase change comes last
+     * @param events The events in the order they happened
+     * @return The merged events
+     */
+    public static List<GameEvent> merge(List<GameEvent> events) {
+        Map<Integer, GameEvent> territories = new LinkedHashMap<>(); // by territory index
+        List<GameEvent> eliminations = new ArrayList<>();
+        GameEvent turnChange = null;
+        GameEvent phaseChange = null;
+
+        for (GameEvent event : events) {
+            switch (event.type) {
+                case ARMIES_CHANGED:
+                    territories.putIfAbsent(event.territory.getIndex(), event);
+                    break;
+
+                case OWNER_CHANGED:
+                    GameEvent earlier = territories.get(event.territory.getIndex());
+                    if (earlier == null || earlier.type != Type.OWNER_CHANGED) {
+                        territories.put(event.territory.getIndex(), event);
+                    }
+                    break;
+
+                case PLAYER_ELIMINATED:
+                    eliminations.add(event);
+                    break;
+
+                case TURN_CHANGED:
+                    turnChange = event;
+                    break;
+
+                case PHASE_CHANGED:
+                    phaseChange = event;
+                    break;
+            }
+        }
+
+        List<GameEvent> merged = new ArrayList<>(territories.size() + eliminations.size() + 2);
+        for (GameEvent event : territories.values()) {
+            // Recreated so the owner and armies are the ones at the end of the batch
+            merged.add(event.type == Type.OWNER_CHANGED
+                    ? ownerChanged(event.territory, event.previousOwner)
+                    : armiesChanged(event.territory));
+        }
+        merged.addAll(eliminations);
+        if (turnChange != null) {
+            merged.add(turnChange);
+        }
+        if (phaseChange != null) {
+            merged.add(phaseChange);
+        }
+        return merged;
+    }
+}
@@ -1,10 +1,14 @@
 import org.xml.sax.SAXException;
 
 import javax.swing.*;
-import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreePath;
 import javax.xml.parsers.ParserConfigurationException;
 import java.awt.*;
+import java.awt.event.MouseEvent;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
 
@@ -16,12 +20,17 @@ import java.util.List;
  */
 public class GameFrame extends JFrame implements GameView{
     private final String[] options = {"OK"};
-    private final JTextArea actionLog;
-    private final DefaultMutableTreeNode mapList;
+    private final ActionLog actionLog;
+    private final SaveCatalog saveCatalog;
+    private final Game game;
+    private final MapTreeModel mapModel;
     private final JTree map;
     private final JLabel playerTurn;
-    private final DefaultListModel<String> leaderBoardList;
-    private final JButton attack,move,done,place;
+    private final Leaderboard leaderBoardList;
+    private final JButton attack,move,done,place,pause;
+    private final Object changesLock = new Object();
+    private ViewChanges pendingChanges = new ViewChanges(); // guarded by changesLock
+    public static final int FRAME_RATE = 30; // frames per second the map and leaderboard are redrawn at
 
     /**
      * constructor of the GameFrame that initializes the view of the GameModel
@@ -31,12 +40,34 @@ public class GameFrame extends JFrame implements GameView{
     public GameFrame() {
         super("RISK!");
 
-        Game game  = new Game();
+        game  = new Game();
+        try {
+            game.setMapCache(new MapCache(Paths.get(MapCache.DEFAULT_DIRECTORY)));
+        } catch (IOException e) {
+            // Maps are parsed on every start instead
+            e.printStackTrace();
+        }
         //TextArea to show the log
-        actionLog = new JTextArea();
-        actionLog.setEditable(false);
-        actionLog.setRows(20);
-        JScrollPane actionLogScroll = new JScrollPane(actionLog);
+        JTextArea actionLogArea = new JTextArea();
+        actionLogArea.setEditable(false);
+        actionLogArea.setRows(20);
+        try {
+            saveCatalog = new SaveCatalog(Paths.get(SaveCatalog.DEFAULT_DIRECTORY));
+        } catch (IOException e) {
+            throw new IllegalStateException("The save directory could not be created", e);
+        }
+        try {
+            ActionLog.compact(Paths.get(ActionLog.JOURNAL_FILE), saveCatalog.getLogFiles());
+        } catch (IOException e) {
+            // The journal keeps growing until it can be compacted
+            e.printStackTrace();
+        }
+        try {
+            actionLog = new ActionLog(actionLogArea, ActionLog.DEFAULT_CAPACITY, Paths.get(ActionLog.JOURNAL_FILE));
+        } catch (IOException e) {
+            throw new IllegalStateException("The action log could not be created", e);
+        }
+        JScrollPane actionLogScroll = new JScrollPane(actionLogArea);
         actionLogScroll.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
         JLabel actionLogLabel = new JLabel("Action log");
         actionLogLabel.setSize(10, 10);
@@ -48,15 +79,24 @@ public class GameFrame extends JFrame implements GameView{
                     JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE,
                     null, gameOptions, gameOptions[0]);
             if (result == JOptionPane.YES_OPTION){
-                welcomePlayers(game);
+                try {
+                    welcomePlayers(game);
+                } catch (IllegalStateException e) {
+                    JOptionPane.showMessageDialog(this, "Critical error. Shutting down." + e.getMessage());
+                    System.exit(-1);
+                }
                 break;
             }else if (result == JOptionPane.NO_OPTION){
+                String slot = chooseSaveSlot();
+                if (slot == null) {
+                    continue;
+                }
                 try {
-                    game.loadGame();
-                    loadActionLog();
+                    game.restore(saveCatalog.load(slot));
+                    loadActionLog(slot);
                     break;
-                } catch (ClassNotFoundException | IOException e) {
-                    JOptionPane.showMessageDialog(this, "There is no saved game");
+                } catch (IOException e) {
+                    JOptionPane.showMessageDialog(this, "The saved game could not be loaded");
                     e.printStackTrace();
                 }
             }else if (result == JOptionPane.CANCEL_OPTION){
@@ -79,6 +119,7 @@ public class GameFrame extends JFrame implements GameView{
         List<Player> activePlayers = game.getActivePlayers();
         Player currentPlayer = game.getCurrentPlayer();
         GameController gc = new GameController(game,this);
+        game.setPlayerDecisions(gc);
 
         JMenuBar menuBar = new JMenuBar();
         JMenu menu = new JMenu("File");
@@ -94,29 +135,28 @@ public class GameFrame extends JFrame implements GameView{
         menuBar.add(menu);
 
         //JTree for map
-        mapList = new DefaultMutableTreeNode();
-        for (String id : continents.keySet()) {
-            DefaultMutableTreeNode contList = new DefaultMutableTreeNode(continents.get(id).getName());
-            for (Territory territory : continents.get(id).getTerritoryList()) {
-                DefaultMutableTreeNode terr = new DefaultMutableTreeNode(territory.toString());
-                contList.add(terr);
+        mapModel = new MapTreeModel();
+        map = new JTree(mapModel) {
+            @Override
+            public String getToolTipText(MouseEvent event) {
+                // Built on hover rather than for every row
+                TreePath path = getPathForLocation(event.getX(), event.getY());
+                return path == null ? null : MapTreeModel.getAdjacentText(path.getLastPathComponent());
             }
-            mapList.add(contList);
-        }
-        map = new JTree(mapList);
-
+        };
+        map.setCellRenderer(new MapTreeModel.Renderer());
+        ToolTipManager.sharedInstance().registerComponent(map);
         map.setRootVisible(false);
-        for (int i = 0; i < map.getRowCount(); i++) {
-            map.expandRow(i);
-        }
+        // Fixed height rows so the tree does not measure every row, only the ones it paints
+        map.setRowHeight(map.getFontMetrics(map.getFont()).getHeight() + 4);
+        map.setLargeModel(true);
+        resetMap(continents);
         JScrollPane mapScrollPane = new JScrollPane(map);
         JLabel mapLabel = new JLabel("Map");
 
         //JList of player leaderboard
-        leaderBoardList = new DefaultListModel<>();
-        for (Player player : activePlayers) {
-            leaderBoardList.addElement(player.getName() + " owns " + player.getAllLandOwnedSize() + " territories");
-        }
+        leaderBoardList = new Leaderboard();
+        leaderBoardList.reset(activePlayers);
         JList<String> leaderBoard = new JList<>(leaderBoardList);
         JLabel leaderBoardLabel = new JLabel("Leaderboard");
         leaderBoardLabel.setVerticalAlignment(JLabel.BOTTOM);
@@ -137,7 +177,23 @@ public class GameFrame extends JFrame implements GameView{
         done.setActionCommand(done.getText());
         place.addActionListener(gc);
         place.setActionCommand(place.getText());
-
+        pause = new JButton("Pause AI");
+        pause.addActionListener(gc);
+        pause.setActionCommand("Pause AI");
+        pause.setEnabled(false);
+
+        //JSlider for how fast AI turns are played, uncapped by default
+        JSlider speed = new JSlider(0, GameController.TURN_DELAYS.length - 1, GameController.TURN_DELAYS.length - 1);
+        Hashtable<Integer, JLabel> speedLabels = new Hashtable<>();
+        speedLabels.put(0, new JLabel("1x"));
+        speedLabels.put(1, new JLabel("10x"));
+        speedLabels.put(2, new JLabel("Max"));
+        speed.setLabelTable(speedLabels);
+        speed.setPaintLabels(true);
+        speed.setSnapToTicks(true);
+        speed.setMajorTickSpacing(1);
+        speed.setToolTipText("AI speed");
+        speed.addChangeListener(gc);
 
         //disable all buttons until place phase is done
         attack.setEnabled(false);
@@ -145,7 +201,7 @@ public class GameFrame extends JFrame implements GameView{
         done.setEnabled(false);
         //panels for main menu
         JPanel bottomPanel = new JPanel();
-        bottomPanel.setLayout(new GridLayout(1, 4));
+        bottomPanel.setLayout(new GridLayout(1, 6));
         JPanel rightPanel = new JPanel();
         rightPanel.setLayout(new BoxLayout(rightPanel, BoxLayout.Y_AXIS));
         JPanel leftPanel = new JPanel();
@@ -169,19 +225,24 @@ public class GameFrame extends JFrame implements GameView{
         bottomPanel.add(move);
         bottomPanel.add(done);
         bottomPanel.add(place);
+        bottomPanel.add(pause);
+        bottomPanel.add(speed);
         add(bottomPanel, BorderLayout.SOUTH);
         this.setJMenuBar(menuBar);
         this.setSize(1200, 600);
         this.setVisible(true);
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
+        // Draws the changes made by AI turns at a fixed rate, however fast the AI plays
+        new javax.swing.Timer(1000 / FRAME_RATE, e -> drawChanges()).start();
+
         if (game.getCurrentPlayer().isAI()){
-            game.AITurn();
+            gc.runAITurns(game::AITurn);
         }
     }
 
     /**
-     * Updates the view based on which method from the game model has called the update
+     * Redraws the whole map and leaderboard, e.g. after a game was loaded, and updates the buttons
      *
      * @param game The game state
      *
@@ -189,12 +250,93 @@ public class GameFrame extends JFrame implements GameView{
      */
     @Override
     public void updateView(Game game) {
-       Map <String,Continent>  continents = game.getContinents();
-       Player currentPlayer = game.getCurrentPlayer();
-       List<Player> activePlayers = game.getActivePlayers();
-       Game.Status status = game.getStatus();
+        synchronized (changesLock) {
+            // Changes to the territories that were replaced
+            pendingChanges = new ViewChanges();
+        }
+        resetMap(game.getContinents());
+        leaderBoardList.reset(game.getActivePlayers());
+        playerTurn.setText("It is " + game.getCurrentPlayer().getName() + "'s turn: ");
+        updateButtons(game.getStatus(), !game.getCurrentPlayer().isAI(), findWinner(game));
+    }
 
-        resetMapAndLeaderBoard(continents, activePlayers);
+    /**
+     * Records the changes of one game action, to be drawn by the next frame. AI turns call this on a background
+     * thread, so everything the EDT needs is read from the game here, and the frame timer draws whatever changed
+     * since the last frame, so the AI is never slowed down by repainting. Changes made on the EDT are drawn at once
+     *
+     * @param events The merged changes
+     */
+    @Override
+    public void handleEvents(List<GameEvent> events) {
+        // Only the players whose territories or armies changed are re-ranked
+        Set<Player> changedPlayers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GameEvent event : events) {
+            switch (event.getType()) {
+                case OWNER_CHANGED:
+                    changedPlayers.add(event.getPreviousOwner());
+                    changedPlayers.add(event.getPlayer());
+                    break;
+                case ARMIES_CHANGED:
+                    changedPlayers.add(event.getPlayer());
+                    break;
+                case PLAYER_ELIMINATED:
+                    changedPlayers.remove(event.getPlayer());
+                    break;
+            }
+        }
+        List<Leaderboard.Row> changedRows = new ArrayList<>(changedPlayers.size());
+        for (Player player : changedPlayers) {
+            if (player.getAllLandOwnedSize() > 0) {
+                changedRows.add(new Leaderboard.Row(player));
+            }
+        }
+        synchronized (changesLock) {
+            pendingChanges.add(events, changedRows, game.getTurn(), !game.getCurrentPlayer().isAI(), findWinner(game));
+        }
+        if (SwingUtilities.isEventDispatchThread()) {
+            drawChanges();
+        }
+    }
+
+    /**
+     * Draws the changes recorded since the last frame, called on the EDT by the frame timer
+     */
+    private void drawChanges() {
+        ViewChanges changes;
+        synchronized (changesLock) {
+            if (pendingChanges.isEmpty()) {
+                return;
+            }
+            changes = pendingChanges;
+            pendingChanges = new ViewChanges();
+        }
+        for (GameEvent event : changes.getTerritories()) {
+            mapModel.territoryChanged(event.getTerritory(), event.getPlayer(), event.getArmies());
+        }
+        // Rank the players before checking for a winner
+        for (String name : changes.getEliminated()) {
+            leaderBoardList.remove(name);
+        }
+        for (Leaderboard.Row row : changes.getRows()) {
+            leaderBoardList.update(row);
+        }
+        if (changes.getCurrentPlayer() != null) {
+            playerTurn.setText("It is " + changes.getCurrentPlayer() + "'s turn: (turn " + changes.getTurn() + ")");
+        }
+        if (changes.getStatus() != null) {
+            updateButtons(changes.getStatus(), changes.isHumanTurn(), changes.getWinner());
+        }
+    }
+
+    /**
+     * Enables the buttons for the phase the game is in
+     *
+     * @param status The game's status
+     * @param humanTurn true if it is a human player's turn
+     * @param winner The name of the player who won the game, or null if no one has won yet
+     */
+    private void updateButtons(Game.Status status, boolean humanTurn, String winner) {
         switch (status) {
             case PLACE:
                 place.setEnabled(false);
@@ -204,11 +346,15 @@ public class GameFrame extends JFrame implements GameView{
                 break;
 
             case ATTACK:
-                checkForWinner(activePlayers,currentPlayer);
+                checkForWinner(winner);
                 break;
 
             case DONE:
-                playerTurn.setText("It is " + currentPlayer.getName() + "'s turn: ");
+                if (!humanTurn) {
+                    // The AI players are still moving
+                    disableButtons();
+                    break;
+                }
                 place.setEnabled(true);
                 attack.setEnabled(false);
                 move.setEnabled(false);
@@ -222,6 +368,20 @@ public class GameFrame extends JFrame implements GameView{
         }
     }
 
+    /**
+     * Shows whether AI turns are being played on the background thread, and whether they are paused
+     *
+     * @param running true while AI turns are being played
+     * @param paused true if the AI turns are paused
+     */
+    public void setAIRunning(boolean running, boolean paused) {
+        if (running) {
+            disableButtons();
+        }
+        pause.setEnabled(running);
+        pause.setText(paused ? "Resume AI" : "Pause AI");
+    }
+
     public static void main(String[] args) {
         new GameFrame();
     }
@@ -234,48 +394,40 @@ public class GameFrame extends JFrame implements GameView{
     }
 
     /**
-     * Updates the map as the game progresses (IE: attack/move territories losing/gaining armies)
-     * Updates the leaderboard as the game progresses (IE: attack territory and conquer the land)
+     * Rebuilds the map from scratch, only needed when the game's territories are replaced (IE: loading a game)
      *
      * @param continents a list of continents on the map
      *
      * @author Robell Gabriel and Phuc La
      */
-    private void resetMapAndLeaderBoard(Map<String, Continent> continents, List<Player> activePlayers) {
-        mapList.removeAllChildren();
-        for (String id : continents.keySet()) {
-            DefaultMutableTreeNode contList = new DefaultMutableTreeNode(continents.get(id).getName());
-            for (Territory territory : continents.get(id).getTerritoryList()) {
-                DefaultMutableTreeNode terr = new DefaultMutableTreeNode(territory.toString());
-                contList.add(terr);
-            }
-            mapList.add(contList);
-
-        }
-        SwingUtilities.updateComponentTreeUI(map);
+    private void resetMap(Map<String, Continent> continents) {
+        mapModel.setContinents(continents);
         for (int i = 0; i < map.getRowCount(); i++) {
             map.expandRow(i);
         }
+    }
 
-        leaderBoardList.removeAllElements();
-        List<Player> sortedPlayer = new ArrayList<>(activePlayers);
-        sortedPlayer.sort(Comparator.comparing(Player::getAllLandOwnedSize).reversed());
-        for (Player player : sortedPlayer) {
-            leaderBoardList.addElement(player.getName() + " owns " + player.getAllLandOwnedSize() + " territories");
-        }
+    /**
+     * Finds the winner of a game
+     *
+     * @param game The game state
+     * @return The name of the last player standing, or null if the game is not over
+     */
+    private static String findWinner(Game game) {
+        List<Player> activePlayers = game.getActivePlayers();
+        return activePlayers.size() == 1 ? activePlayers.get(0).getName() : null;
     }
 
     /**
      * Checks if there's a winner
      *
-     * @param activePlayers list of all players in game
-     * @param currentPlayer Player object of current player's turn
+     * @param winner The name of the player who won the game, or null if no one has won yet
      *
      * @author Robell Gabriel
      */
-    private void checkForWinner(List<Player> activePlayers, Player currentPlayer){
-        if (activePlayers.size() == 1) {
-            JOptionPane.showOptionDialog(this, "Congratulations " + currentPlayer.getName() + ". You are the winner!!!", "Winner",
+    private void checkForWinner(String winner){
+        if (winner != null) {
+            JOptionPane.showOptionDialog(this, "Congratulations " + winner + ". You are the winner!!!", "Winner",
                     JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE,
                     null, options, options[0]);
             disableButtons();
@@ -342,43 +494,68 @@ public class GameFrame extends JFrame implements GameView{
     }
 
     /**
-     * Prints a line to the action log
+     * Adds an entry to the action log, can be called from any thread. The entry is formatted on the EDT
+     * when the action log is flushed
      *
-     * @param str The line to be printed to the action log
+     * @param event The entry to add to the action log
      *
      * @author Nicolas Tuttle
      */
     @Override
-    public void printLine(String str) {
-        actionLog.append(str + "\n");
-        actionLog.setCaretPosition(actionLog.getDocument().getLength());
+    public void log(LogEvent event) {
+        actionLog.append(event);
     }
 
     /**
-     * This method save the action log of the game into an sav file.
-     * @throws IOException if the file cannot be saved
+     * Get the save slots games are saved to and loaded from
+     * @return the save catalog
      */
-    public void saveActionLog() throws IOException {
-        FileWriter fw = new FileWriter("Actionlog.sav");
-        for(String line : actionLog.getText().split("\n")){
-            fw.write(line + "\n");
+    public SaveCatalog getSaveCatalog() {
+        return saveCatalog;
+    }
+
+    /**
+     * This method lists the save slots and asks the user which one to load
+     * @return the slot's name, or null if there are no saved games or the user cancelled
+     */
+    public String chooseSaveSlot() {
+        List<SaveCatalog.Entry> entries;
+        try {
+            entries = saveCatalog.entries();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "The saved games could not be listed");
+            e.printStackTrace();
+            return null;
         }
-        fw.close();
+        if (entries.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "There is no saved game");
+            return null;
+        }
+        SaveSlotPanel panel = new SaveSlotPanel(entries);
+        int result = JOptionPane.showConfirmDialog(this, panel, "Load Game", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE);
+        return result == JOptionPane.OK_OPTION ? panel.getSelectedSlot() : null;
+    }
+
+    /**
+     * This method saves where the game's action log is in the journal into the save slot's log file.
+     * @param slot the save slot the game was saved to
+     * @throws IOException if the file cannot be saved
+     */
+    public void saveActionLog(String slot) throws IOException {
+        actionLog.save(saveCatalog.getLogFile(slot));
     }
 
     /**
-     * This method load the action log of the loaded game file to the action log text area.
-     * @throws FileNotFoundException if the file cannot be loaded
+     * This method loads the action log of the loaded game from the journal, showing its most recent lines in the action log text area.
+     * Slots saved without their log, like autosaves, keep the log that is shown
+     * @param slot the save slot the game was loaded from
+     * @throws IOException if the file cannot be loaded
      */
-    public void loadActionLog() throws FileNotFoundException {
-        File file = new File("Actionlog.sav");
-        Scanner sc = new Scanner(file);
-        actionLog.selectAll();
-        actionLog.replaceSelection("");
-        while(sc.hasNextLine()){
-            String act = sc.nextLine();
-            printLine(act);
+    public void loadActionLog(String slot) throws IOException {
+        Path file = saveCatalog.getLogFile(slot);
+        if (Files.exists(file)) {
+            actionLog.load(file);
         }
-        actionLog.append("\n");
     }
 }
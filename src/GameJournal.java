@@ -0,0 +1,395 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only journal of every command that changed a game, so the game can be rebuilt exactly by replaying it,
+ * e.g. to look into an odd game after the fact. The outcome of every command is recorded rather than the dice and
+ * AI decisions that led to it, so replay never rolls dice or asks anyone, and the random number generator's state
+ * is recorded at the end of every turn so a replayed game goes on rolling the same dice. A GameSnapshot is written
+ * at the start and every few turns, and replay starts from the last one instead of from turn one.
+ *
+ * Records are gathered in a buffer and written when it fills up or the journal is flushed, so recording a command
+ * is a few puts into the buffer and saving is one write of what was gathered since the last save.
+ *
+ * File format (big endian): int MAGIC, short VERSION, then records, each a type byte followed by
+ * <pre>
+ * SNAPSHOT  int length, GameSnapshot
+ * PLACE     int territory, int armies placed
+ * ATTACK    int attacking, int armies left, int defending, int armies left
+ * CONQUER   int attacking, int defending, int armies transferred
+ * MOVE      int from, int to, int armies moved
+ * DONE      long random seed after the turn
+ * </pre>
+ * Territories are map indices. A record cut short at the end of the file, e.g. by a crash, is ignored.
+ */
+public class GameJournal implements Closeable {
+    /**
+     * The first four bytes of every journal, "RJNL"
+     */
+    public static final int MAGIC = 0x524a4e4c;
+
+    /**
+     * The version of the format written, files of a newer version cannot be replayed
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The file the GUI journals its game to
+     */
+    public static final String JOURNAL_FILE = "RISK.journal";
+
+    /**
+     * The number of journals of earlier sessions kept by rotate, as RISK.journal.1 (the latest) and up
+     */
+    public static final int KEPT_JOURNALS = 3;
+
+    /**
+     * The number of turns between two snapshots
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 50;
+
+    private static final byte SNAPSHOT = 1;
+    private static final byte PLACE = 2;
+    private static final byte ATTACK = 3;
+    private static final byte CONQUER = 4;
+    private static final byte MOVE = 5;
+    private static final byte DONE = 6;
+    private static final int MAX_RECORD = 1 + 4 * Integer.BYTES; // largest record other than a snapshot
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final int snapshotInterval;
+    private int turnsSinceSnapshot = 0;
+    private IOException error; // first write that failed, thrown by the next flush
+
+    /**
+     * Constructor for class GameJournal, replaces the file with a journal starting with a snapshot of the game
+     * @param file The journal file
+     * @param game The game to record, which should be given this journal with setJournal
+     * @param snapshotInterval The number of turns between two snapshots
+     * @throws IOException If the file cannot be written
+     */
+    public GameJournal(Path file, Game game, int snapshotInterval) throws IOException {
+        this.snapshotInterval = snapshotInterval;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        restart(game);
+    }
+
+    /**
+     * Keep the journal of an earlier session before a new one replaces it, by renaming it to file.1, file.1 to
+     * file.2 and so on, dropping the oldest
+     * @param file The journal file
+     * @param kept The number of earlier journals to keep
+     * @throws IOException If a journal cannot be renamed
+     */
+    public static void rotate(Path file, int kept) throws IOException {
+        if (kept < 1 || !Files.exists(file)) {
+            return;
+        }
+        Files.deleteIfExists(rotated(file, kept));
+        for (int i = kept - 1; i >= 1; i--) {
+            if (Files.exists(rotated(file, i))) {
+                Files.move(rotated(file, i), rotated(file, i + 1));
+            }
+        }
+        Files.move(file, rotated(file, 1));
+    }
+
+    private static Path rotated(Path file, int generation) {
+        return file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    /**
+     * Throw away everything recorded and start again from a snapshot of the game, e.g. after another game was
+     * loaded into it
+     * @param game The game
+     * @throws IOException If the file cannot be written
+     */
+    public void restart(Game game) throws IOException {
+        buffer.clear();
+        error = null;
+        channel.truncate(0);
+        channel.position(0);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        snapshot(game);
+        flush();
+    }
+
+    /**
+     * Record armies placed on a territory
+     * @param territory The territory
+     * @param armies The number of armies placed
+     */
+    public void place(Territory territory, int armies) {
+        reserve(MAX_RECORD);
+        buffer.put(PLACE).putInt(territory.getIndex()).putInt(armies);
+    }
+
+    /**
+     * Record the outcome of an attack or blitz, after the losses were removed
+     * @param attacking The attacking territory
+     * @param defending The defending territory
+     */
+    public void attack(Territory attacking, Territory defending) {
+        reserve(MAX_RECORD);
+        buffer.put(ATTACK).putInt(attacking.getIndex()).putInt(attacking.getNumArmies())
+                .putInt(defending.getIndex()).putInt(defending.getNumArmies());
+    }
+
+    /**
+     * Record a territory conquered by the current player
+     * @param attacking The territory the armies were transferred from
+     * @param defending The conquered territory
+     * @param armies The number of armies transferred
+     */
+    public void conquer(Territory attacking, Territory defending, int armies) {
+        reserve(MAX_RECORD);
+        buffer.put(CONQUER).putInt(attacking.getIndex()).putInt(defending.getIndex()).putInt(armies);
+    }
+
+    /**
+     * Record armies moved at the end of a turn, before the turn ends
+     * @param from The territory the armies were moved from
+     * @param to The territory the armies were moved to
+     * @param armies The number of armies moved
+     */
+    public void move(Territory from, Territory to, int armies) {
+        reserve(MAX_RECORD);
+        buffer.put(MOVE).putInt(from.getIndex()).putInt(to.getIndex()).putInt(armies);
+    }
+
+    /**
+     * Record the end of a turn, and take a snapshot if enough turns have passed since the last one
+     * @param game The game, after the next player's turn started
+     * @param randomSeed The seed of the game's random number generator
+     */
+    public void done(Game game, long randomSeed) {
+        reserve(1 + Long.BYTES);
+        buffer.put(DONE).putLong(randomSeed);
+        if (++turnsSinceSnapshot >= snapshotInterval) {
+            snapshot(game);
+        }
+    }
+
+    /**
+     * Write everything recorded so far to the file
+     * @throws IOException If this or an earlier write failed
+     */
+    public void flush() throws IOException {
+        write();
+        if (error != null) {
+            IOException e = error;
+            error = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Write everything recorded so far to the file and force it to disk, e.g. when the game is saved
+     * @throws IOException If this or an earlier write failed
+     */
+    public void force() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void snapshot(Game game) {
+        GameSnapshot snapshot = game.snapshot();
+        reserve(1 + Integer.BYTES + snapshot.size());
+        if (buffer.remaining() < 1 + Integer.BYTES + snapshot.size()) {
+            // Larger than the buffer, e.g. a huge custom map
+            ByteBuffer large = ByteBuffer.allocate(1 + Integer.BYTES + snapshot.size());
+            large.put(SNAPSHOT).putInt(snapshot.size());
+            snapshot.write(large);
+            large.flip();
+            writeFully(large);
+        } else {
+            buffer.put(SNAPSHOT).putInt(snapshot.size());
+            snapshot.write(buffer);
+        }
+        turnsSinceSnapshot = 0;
+    }
+
+    /**
+     * Make room for a record, writing the buffer to the file if it is too full
+     */
+    private void reserve(int bytes) {
+        if (buffer.remaining() < bytes) {
+            write();
+        }
+    }
+
+    private void write() {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes) {
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            // Commands cannot fail because the journal could not be written, the next flush reports it
+            if (error == null) {
+                error = e;
+            }
+        }
+    }
+
+    /**
+     * Rebuild a game from a journal, starting from its last complete snapshot. The game should have no views,
+     * or they should be updated with updateView afterwards
+     * @param file The journal file
+     * @param game The game to rebuild, which should not be recording into the journal being replayed
+     * @return The number of records replayed after the snapshot
+     * @throws IOException If the file cannot be read, is not a journal, or names territories not on the map
+     */
+    public static int replay(Path file, Game game) throws IOException {
+        MappedByteBuffer journal;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (journal.getInt() != MAGIC) {
+                throw new IOException("Not a game journal");
+            }
+            short version = journal.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported game journal version " + version);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Not a game journal", e);
+        }
+
+        // Find the last complete snapshot, skipping over the other records
+        int lastSnapshot = -1;
+        int end = journal.position(); // end of the last complete record
+        while (journal.hasRemaining()) {
+            int start = journal.position();
+            int size = recordSize(journal);
+            if (size < 0 || size > journal.limit() - start) {
+                break;
+            }
+            if (journal.get(start) == SNAPSHOT) {
+                lastSnapshot = start;
+            }
+            end = start + size;
+            journal.position(end);
+        }
+        if (lastSnapshot < 0) {
+            throw new IOException("The game journal has no snapshot");
+        }
+
+        journal.position(lastSnapshot + 1 + Integer.BYTES);
+        game.restore(GameSnapshot.read(journal));
+        TerritoryGraph graph = game.getGraph();
+        int records = 0;
+        while (journal.position() < end) {
+            byte type = journal.get();
+            switch (type) {
+                case PLACE: {
+                    Territory territory = territory(graph, journal.getInt());
+                    game.replayPlace(territory, journal.getInt());
+                    break;
+                }
+                case ATTACK: {
+                    Territory attacking = territory(graph, journal.getInt());
+                    int attackingArmies = journal.getInt();
+                    Territory defending = territory(graph, journal.getInt());
+                    game.replayAttack(attacking, attackingArmies, defending, journal.getInt());
+                    break;
+                }
+                case CONQUER: {
+                    Territory attacking = territory(graph, journal.getInt());
+                    Territory defending = territory(graph, journal.getInt());
+                    game.attackWon(attacking, defending, journal.getInt());
+                    break;
+                }
+                case MOVE: {
+                    Territory from = territory(graph, journal.getInt());
+                    Territory to = territory(graph, journal.getInt());
+                    game.replayMove(from, to, journal.getInt());
+                    break;
+                }
+                case DONE:
+                    game.replayDone(journal.getLong());
+                    break;
+                default:
+                    throw new IOException("Unknown record " + type);
+            }
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Get the size of the record at the buffer's position
+     * @return The size in bytes including the type, or -1 if the record is cut short or unknown
+     */
+    private static int recordSize(ByteBuffer journal) {
+        int start = journal.position();
+        switch (journal.get(start)) {
+            case SNAPSHOT:
+                if (journal.limit() - start < 1 + Integer.BYTES) {
+                    return -1;
+                }
+                return 1 + Integer.BYTES + journal.getInt(start + 1);
+            case PLACE:
+                return 1 + 2 * Integer.BYTES;
+            case ATTACK:
+                return 1 + 4 * Integer.BYTES;
+            case CONQUER:
+            case MOVE:
+                return 1 + 3 * Integer.BYTES;
+            case DONE:
+                return 1 + Long.BYTES;
+            default:
+                return -1;
+        }
+    }
+
+    private static Territory territory(TerritoryGraph graph, int index) throws IOException {
+        if (index < 0 || index >= graph.size()) {
+            throw new IOException("Invalid territory " + index);
+        }
+        return graph.getTerritory(index);
+    }
+
+    /**
+     * Replays a journal and prints the state of the game at its end, e.g. for the postmortem of an odd game
+     * The GUI keeps the journals of its earlier sessions in RISK.journal.1 and up
+     * Usage: java GameJournal [journal file]
+     */
+    public static void main(String[] args) throws IOException {
+        Game game = new Game(new GameRandom(0));
+        int records = replay(Paths.get(args.length > 0 ? args[0] : JOURNAL_FILE), game);
+        System.out.printf("Replayed %d commands, turn %d, %s's turn (%s)%n", records, game.getTurn(),
+                game.getCurrentPlayer().getName(), game.getStatus());
+        for (Player player : game.getActivePlayers()) {
+            System.out.printf("%s owns %d territories, %d armies%n", player.getName(),
+                    player.getAllLandOwnedSize(), player.getTotalArmies());
+        }
+    }
+}
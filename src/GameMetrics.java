@@ -0,0 +1,295 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms of the games played on a server, fed by a MetricsView per game and read through JMX.
+ * Every number is a LongAdder, so games on any number of threads record without locks or contention, and reading
+ * them only sums the adders. The numbers read while games are running are not a consistent snapshot of one moment.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    /**
+     * The JMX domain the metrics are registered under
+     */
+    public static final String DOMAIN = "risk";
+
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder attacks = new LongAdder();
+    private final LongAdder attackRounds = new LongAdder();
+    private final LongAdder attackerLosses = new LongAdder();
+    private final LongAdder defenderLosses = new LongAdder();
+    private final LongAdder[] attackerFaces = newAdders(LogEvent.DICE_FACES);
+    private final LongAdder[] defenderFaces = newAdders(LogEvent.DICE_FACES);
+    private final LongAdder conquests = new LongAdder();
+    private final LongAdder eliminations = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final Histogram attacksPerTurn = new Histogram();
+    private final Histogram turnMicros = new Histogram();
+    private final Histogram eliminationToWinMillis = new Histogram();
+
+    /**
+     * A histogram of non-negative values with power of two buckets, so recording a value is one increment
+     */
+    public static class Histogram {
+        private final LongAdder[] buckets = newAdders(Long.SIZE + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Record a value, negative values are recorded as 0
+         * @param value The value
+         */
+        public void record(long value) {
+            value = Math.max(0, value);
+            buckets[Long.SIZE - Long.numberOfLeadingZeros(value)].increment();
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * Get the bucket counts, up to the last bucket that is not empty
+         * @return The counts, bucket 0 for values of 0 and bucket i for values from 2^(i-1) to 2^i - 1
+         */
+        public long[] getBuckets() {
+            long[] counts = new long[buckets.length];
+            int length = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                if (counts[i] > 0) {
+                    length = i + 1;
+                }
+            }
+            return Arrays.copyOf(counts, length);
+        }
+
+        /**
+         * Get the number of values recorded
+         * @return The count
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Get the mean of the values recorded
+         * @return The mean, or 0 if none were recorded
+         */
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * Get the largest value recorded
+         * @return The largest value, or 0 if none were recorded
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Forget every value recorded
+         */
+        public void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+
+    /**
+     * Register the metrics with the platform MBean server, so they can be read with e.g. JConsole
+     * @param name The name to register them under, e.g. the server's name
+     * @return The name the metrics were registered as
+     * @throws JMException If the name is invalid or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=GameMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Unregister metrics registered by register
+     * @param objectName The name returned by register
+     * @throws JMException If the metrics are not registered
+     */
+    public void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    /**
+     * Record the end of a turn
+     * @param attacks The number of attacks in the turn
+     * @param nanos How long the turn took in nanoseconds
+     */
+    public void recordTurn(int attacks, long nanos) {
+        turns.increment();
+        attacksPerTurn.record(attacks);
+        turnMicros.record(nanos / 1_000);
+    }
+
+    /**
+     * Record an attack or blitz
+     * @param event The ATTACKED or BLITZED log entry
+     */
+    public void recordAttack(LogEvent event) {
+        attacks.increment();
+        attackRounds.add(event.getType() == LogEvent.Type.BLITZED ? event.getRounds() : 1);
+        attackerLosses.add(event.getAttackLosses());
+        defenderLosses.add(event.getDefendLosses());
+        for (int face = 1; face <= LogEvent.DICE_FACES; face++) {
+            attackerFaces[face - 1].add(event.getAttackFaceCount(face));
+            defenderFaces[face - 1].add(event.getDefendFaceCount(face));
+        }
+    }
+
+    /**
+     * Record a territory that changed hands
+     */
+    public void recordConquest() {
+        conquests.increment();
+    }
+
+    /**
+     * Record a player who was eliminated
+     */
+    public void recordElimination() {
+        eliminations.increment();
+    }
+
+    /**
+     * Record a game that was won
+     * @param eliminationToWinNanos The time from each elimination of the game to the win in nanoseconds
+     */
+    public void recordWin(long[] eliminationToWinNanos) {
+        wins.increment();
+        for (long nanos : eliminationToWinNanos) {
+            eliminationToWinMillis.record(nanos / 1_000_000);
+        }
+    }
+
+    @Override
+    public long getTurns() {
+        return turns.sum();
+    }
+
+    @Override
+    public long getAttacks() {
+        return attacks.sum();
+    }
+
+    @Override
+    public long getAttackRounds() {
+        return attackRounds.sum();
+    }
+
+    @Override
+    public long getAttackerLosses() {
+        return attackerLosses.sum();
+    }
+
+    @Override
+    public long getDefenderLosses() {
+        return defenderLosses.sum();
+    }
+
+    @Override
+    public long[] getAttackerDiceFaces() {
+        return sums(attackerFaces);
+    }
+
+    @Override
+    public long[] getDefenderDiceFaces() {
+        return sums(defenderFaces);
+    }
+
+    @Override
+    public long getTerritoriesConquered() {
+        return conquests.sum();
+    }
+
+    @Override
+    public long getEliminations() {
+        return eliminations.sum();
+    }
+
+    @Override
+    public long getWins() {
+        return wins.sum();
+    }
+
+    @Override
+    public long[] getAttacksPerTurn() {
+        return attacksPerTurn.getBuckets();
+    }
+
+    @Override
+    public double getMeanAttacksPerTurn() {
+        return attacksPerTurn.getMean();
+    }
+
+    @Override
+    public long[] getTurnDurationMicros() {
+        return turnMicros.getBuckets();
+    }
+
+    @Override
+    public double getMeanTurnDurationMicros() {
+        return turnMicros.getMean();
+    }
+
+    @Override
+    public long getMaxTurnDurationMicros() {
+        return turnMicros.getMax();
+    }
+
+    @Override
+    public long[] getEliminationToWinMillis() {
+        return eliminationToWinMillis.getBuckets();
+    }
+
+    @Override
+    public double getMeanEliminationToWinMillis() {
+        return eliminationToWinMillis.getMean();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[]{turns, attacks, attackRounds, attackerLosses, defenderLosses,
+                conquests, eliminations, wins}) {
+            adder.reset();
+        }
+        for (int i = 0; i < LogEvent.DICE_FACES; i++) {
+            attackerFaces[i].reset();
+            defenderFaces[i].reset();
+        }
+        attacksPerTurn.reset();
+        turnMicros.reset();
+        eliminationToWinMillis.reset();
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * The numbers GameMetrics exposes through JMX. Histograms are exposed as their bucket counts, where bucket 0
+ * counts values of 0 and bucket i counts values from 2^(i-1) to 2^i - 1
+ */
+public interface GameMetricsMXBean {
+    /**
+     * @return The number of turns ended
+     */
+    long getTurns();
+
+    /**
+     * @return The number of attacks, a blitz counts as one attack
+     */
+    long getAttacks();
+
+    /**
+     * @return The number of dice rounds rolled in attacks and blitzes
+     */
+    long getAttackRounds();
+
+    /**
+     * @return The armies lost by attackers
+     */
+    long getAttackerLosses();
+
+    /**
+     * @return The armies lost by defenders
+     */
+    long getDefenderLosses();
+
+    /**
+     * @return How often the attacker rolled each number, from 1 to 6
+     */
+    long[] getAttackerDiceFaces();
+
+    /**
+     * @return How often the defender rolled each number, from 1 to 6
+     */
+    long[] getDefenderDiceFaces();
+
+    /**
+     * @return The number of territories that changed hands
+     */
+    long getTerritoriesConquered();
+
+    /**
+     * @return The number of players eliminated
+     */
+    long getEliminations();
+
+    /**
+     * @return The number of games won
+     */
+    long getWins();
+
+    /**
+     * @return The histogram of attacks per turn
+     */
+    long[] getAttacksPerTurn();
+
+    /**
+     * @return The mean number of attacks per turn
+     */
+    double getMeanAttacksPerTurn();
+
+    /**
+     * @return The histogram of turn durations in microseconds
+     */
+    long[] getTurnDurationMicros();
+
+    /**
+     * @return The mean turn duration in microseconds
+     */
+    double getMeanTurnDurationMicros();
+
+    /**
+     * @return The longest turn in microseconds
+     */
+    long getMaxTurnDurationMicros();
+
+    /**
+     * @return The histogram of the time from each elimination to the end of the game in milliseconds
+     */
+    long[] getEliminationToWinMillis();
+
+    /**
+     * @return The mean time from an elimination to the end of the game in milliseconds
+     */
+    double getMeanEliminationToWinMillis();
+
+    /**
+     * Sets every number back to 0
+     */
+    void reset();
+}
@@ -0,0 +1,130 @@
+import java.util.List;
+
+/**
+ * A seedable, splittable random number generator (SplitMix64, the algorithm behind java.util.SplittableRandom).
+ * Every game owns exactly one, so the same seed replays the same game, and split() hands out statistically
+ * independent streams to games running in parallel without any shared state.
+ *
+ * Unlike SplittableRandom its whole state is two longs that can be read back, so a game's generator can be
+ * saved and restored along with the rest of the game.
+ */
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private final long gamma; // odd increment added to the seed on every draw
+
+    /**
+     * Constructor for GameRandom
+     * @param seed The seed of the generator
+     */
+    public GameRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Constructor for GameRandom, restoring a generator from its saved state
+     * @param seed The generator's current seed, as returned by getSeed()
+     * @param gamma The generator's increment, as returned by getGamma()
+     */
+    public GameRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma | 1L;
+    }
+
+    /**
+     * Create a new generator whose stream is independent of this one. This advances this generator
+     * @return The new generator
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Get the next random long
+     * @return A uniformly distributed long
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Get the next random int between 0 (inclusive) and bound (exclusive)
+     * @param bound The upper bound, must be positive
+     * @return A uniformly distributed int in [0, bound)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            // Power of two, mask
+            r &= m;
+        } else {
+            // Reject over-represented candidates
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) ;
+        }
+        return r;
+    }
+
+    /**
+     * Get the next random double between 0 (inclusive) and 1 (exclusive)
+     * @return A uniformly distributed double in [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Shuffle a list in place (Fisher-Yates)
+     * @param list The list to shuffle
+     * @param <T> The type of the list's elements
+     */
+    public <T> void shuffle(List<T> list) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+
+    /**
+     * Get the generator's current seed, to save its state
+     * @return The current seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the generator's increment, to save its state
+     * @return The increment
+     */
+    public long getGamma() {
+        return gamma;
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
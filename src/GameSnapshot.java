@@ -0,0 +1,396 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The state of a game at one point in time, copied into primitive arrays so it can be written to a file while the
+ * game goes on. The map itself is not part of it, only its fingerprint and the file it was imported from, or its
+ * key in the MapCache if it was imported from a stream, so a saved game is a few hundred bytes.
+ *
+ * File format (big endian):
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * long    map fingerprint
+ * string  map file, empty for the default map or a map imported from a stream
+ * string  map cache key, empty unless the map was imported from a stream (since version 2)
+ * byte    number of players, then for each: byte AI flag, string name
+ * int     number of territories, then for each in map index order: byte owner (player index), int armies
+ * byte    current player
+ * int     turn
+ * int     turn limit
+ * byte    status
+ * long    random seed
+ * long    random gamma
+ * </pre>
+ * Strings are a short byte length followed by UTF-8 bytes.
+ */
+public class GameSnapshot {
+    /**
+     * The first four bytes of every saved game, "RISK"
+     */
+    public static final int MAGIC = 0x5249534b;
+
+    /**
+     * The version of the format written, files of a newer version cannot be read
+     */
+    public static final short VERSION = 2;
+
+    private final long mapFingerprint;
+    private final String mapFile;
+    private final String mapHash;
+    private final String[] playerNames;
+    private final boolean[] playerAI;
+    private final byte[] owners; // index of each territory's owner in playerNames
+    private final int[] armies;
+    private final int currentPlayer;
+    private final int turn;
+    private final int turnLimit;
+    private final Game.Status status;
+    private final long randomSeed;
+    private final long randomGamma;
+
+    /**
+     * Constructor for class GameSnapshot, the arrays are not copied
+     * @param mapFingerprint The fingerprint of the map the game is played on
+     * @param mapFile The file the map was imported from, or null for the default map or a map imported from a stream
+     * @param mapHash The MapCache key of a map imported from a stream, or null if it was imported from a file
+     * @param playerNames The names of the active players in turn order
+     * @param playerAI Whether each active player is an AI
+     * @param owners The index of each territory's owner in playerNames, by map index
+     * @param armies The armies on each territory, by map index
+     * @param currentPlayer The index of the player whose turn it is
+     * @param turn The game's turn
+     * @param turnLimit The turn after which AI turns stop
+     * @param status The game's status
+     * @param randomSeed The seed of the game's random number generator
+     * @param randomGamma The gamma of the game's random number generator
+     */
+    public GameSnapshot(long mapFingerprint, String mapFile, String mapHash, String[] playerNames, boolean[] playerAI,
+                        byte[] owners, int[] armies, int currentPlayer, int turn, int turnLimit, Game.Status status,
+                        long randomSeed, long randomGamma) {
+        this.mapFingerprint = mapFingerprint;
+        this.mapFile = mapFile;
+        this.mapHash = mapHash;
+        this.playerNames = playerNames;
+        this.playerAI = playerAI;
+        this.owners = owners;
+        this.armies = armies;
+        this.currentPlayer = currentPlayer;
+        this.turn = turn;
+        this.turnLimit = turnLimit;
+        this.status = status;
+        this.randomSeed = randomSeed;
+        this.randomGamma = randomGamma;
+    }
+
+    /**
+     * Write the snapshot to a file, replacing it. The snapshot is written to a temporary file next to it which is
+     * then renamed, so the file always holds either the old or the new snapshot, even if the game crashes
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size());
+        write(buffer);
+        buffer.flip();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read a snapshot written by save
+     * @param file The file to read
+     * @return The snapshot
+     * @throws IOException If the file cannot be read or is not a saved game
+     */
+    public static GameSnapshot load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a saved game");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full
+            }
+            buffer.flip();
+            return read(buffer);
+        }
+    }
+
+    /**
+     * Get the number of bytes write puts into a buffer
+     * @return The size of the snapshot in bytes
+     */
+    public int size() {
+        int size = Integer.BYTES + Short.BYTES + Long.BYTES + stringSize(mapFile == null ? "" : mapFile)
+                + stringSize(mapHash == null ? "" : mapHash) + 1;
+        for (String name : playerNames) {
+            size += 1 + stringSize(name);
+        }
+        size += Integer.BYTES + owners.length * (1 + Integer.BYTES);
+        return size + 1 + Integer.BYTES * 2 + 1 + Long.BYTES * 2;
+    }
+
+    /**
+     * Write the snapshot to a buffer
+     * @param buffer The buffer, with at least size() bytes remaining
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putLong(mapFingerprint);
+        putString(buffer, mapFile == null ? "" : mapFile);
+        putString(buffer, mapHash == null ? "" : mapHash);
+        buffer.put((byte) playerNames.length);
+        for (int i = 0; i < playerNames.length; i++) {
+            buffer.put((byte) (playerAI[i] ? 1 : 0));
+            putString(buffer, playerNames[i]);
+        }
+        buffer.putInt(owners.length);
+        for (int i = 0; i < owners.length; i++) {
+            buffer.put(owners[i]);
+            buffer.putInt(armies[i]);
+        }
+        buffer.put((byte) currentPlayer);
+        buffer.putInt(turn);
+        buffer.putInt(turnLimit);
+        buffer.put((byte) status.ordinal());
+        buffer.putLong(randomSeed);
+        buffer.putLong(randomGamma);
+    }
+
+    /**
+     * Read a snapshot from a buffer
+     * @param buffer The buffer positioned at the start of the snapshot
+     * @return The snapshot
+     * @throws IOException If the buffer does not hold a valid snapshot
+     */
+    public static GameSnapshot read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a saved game");
+            }
+            short version = buffer.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported saved game version " + version);
+            }
+            long mapFingerprint = buffer.getLong();
+            String mapFile = getString(buffer);
+            String mapHash = version >= 2 ? getString(buffer) : "";
+            int players = buffer.get() & 0xff;
+            String[] playerNames = new String[players];
+            boolean[] playerAI = new boolean[players];
+            for (int i = 0; i < players; i++) {
+                playerAI[i] = buffer.get() != 0;
+                playerNames[i] = getString(buffer);
+            }
+            int territories = buffer.getInt();
+            if (territories < 0 || territories > buffer.remaining() / (1 + Integer.BYTES)) {
+                throw new IOException("Invalid territory count " + territories);
+            }
+            byte[] owners = new byte[territories];
+            int[] armies = new int[territories];
+            for (int i = 0; i < territories; i++) {
+                owners[i] = buffer.get();
+                armies[i] = buffer.getInt();
+                if ((owners[i] & 0xff) >= players || armies[i] < 0) {
+                    throw new IOException("Invalid territory " + i);
+                }
+            }
+            int currentPlayer = buffer.get() & 0xff;
+            int turn = buffer.getInt();
+            int turnLimit = buffer.getInt();
+            int status = buffer.get() & 0xff;
+            if (currentPlayer >= players || status >= Game.Status.values().length) {
+                throw new IOException("Invalid current player or status");
+            }
+            long randomSeed = buffer.getLong();
+            long randomGamma = buffer.getLong();
+            return new GameSnapshot(mapFingerprint, mapFile.isEmpty() ? null : mapFile,
+                    mapHash.isEmpty() ? null : mapHash, playerNames, playerAI, owners, armies, currentPlayer, turn,
+                    turnLimit, Game.Status.values()[status], randomSeed, randomGamma);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("The saved game is truncated", e);
+        }
+    }
+
+    private static int stringSize(String text) {
+        return Short.BYTES + text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the fingerprint of the map the game is played on
+     * @return The fingerprint, see TerritoryGraph.getFingerprint()
+     */
+    public long getMapFingerprint() {
+        return mapFingerprint;
+    }
+
+    /**
+     * Get the file the map was imported from
+     * @return The file, or null for the default map or a map imported from a stream
+     */
+    public String getMapFile() {
+        return mapFile;
+    }
+
+    /**
+     * Get the key of the map in the MapCache, for maps that were imported from a stream
+     * @return The map's SHA-256 key, or null if it was imported from a file
+     */
+    public String getMapHash() {
+        return mapHash;
+    }
+
+    /**
+     * Get the number of active players
+     * @return The number of players
+     */
+    public int getPlayerCount() {
+        return playerNames.length;
+    }
+
+    /**
+     * Get an active player's name
+     * @param player The player's index in turn order
+     * @return The name
+     */
+    public String getPlayerName(int player) {
+        return playerNames[player];
+    }
+
+    /**
+     * Checks if an active player is an AI
+     * @param player The player's index in turn order
+     * @return true if the player is an AI, false otherwise
+     */
+    public boolean isPlayerAI(int player) {
+        return playerAI[player];
+    }
+
+    /**
+     * Get the number of territories on the map
+     * @return The number of territories
+     */
+    public int getTerritoryCount() {
+        return owners.length;
+    }
+
+    /**
+     * Get a territory's owner
+     * @param territory The territory's map index
+     * @return The owner's index in turn order
+     */
+    public int getOwner(int territory) {
+        return owners[territory] & 0xff;
+    }
+
+    /**
+     * Get the armies on a territory
+     * @param territory The territory's map index
+     * @return The armies
+     */
+    public int getArmies(int territory) {
+        return armies[territory];
+    }
+
+    /**
+     * Get the player whose turn it is
+     * @return The player's index in turn order
+     */
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Get the game's turn
+     * @return The turn
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Get the turn after which AI turns stop
+     * @return The turn limit
+     */
+    public int getTurnLimit() {
+        return turnLimit;
+    }
+
+    /**
+     * Get the game's status
+     * @return The status
+     */
+    public Game.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the seed of the game's random number generator
+     * @return The seed
+     */
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Get the gamma of the game's random number generator
+     * @return The gamma
+     */
+    public long getRandomGamma() {
+        return randomGamma;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GameSnapshot)) {
+            return false;
+        }
+        GameSnapshot s = (GameSnapshot) o;
+        return mapFingerprint == s.mapFingerprint && Objects.equals(mapFile, s.mapFile)
+                && Objects.equals(mapHash, s.mapHash) && Arrays.equals(playerNames, s.playerNames)
+                && Arrays.equals(playerAI, s.playerAI) && Arrays.equals(owners, s.owners)
+                && Arrays.equals(armies, s.armies) && currentPlayer == s.currentPlayer && turn == s.turn
+                && turnLimit == s.turnLimit && status == s.status && randomSeed == s.randomSeed
+                && randomGamma == s.randomGamma;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(mapFingerprint) * 31 + Arrays.hashCode(armies);
+    }
+}
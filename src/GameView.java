@@ -1,6 +1,8 @@
+import java.util.List;
+
 /**
- * interface for GameView includes two methods one to update the buttons and maps
- * and one to print text
+ * interface for GameView includes methods to redraw the whole game, to apply a batch of changes
+ * and to log actions
  *
  * @author Jacob Schmidt
  */
@@ -13,10 +15,16 @@ public interface GameView {
     void updateView(Game game);
 
     /**
-     * adds text to a text area
-     * @param str the string to add too a text area
+     * applies the changes of one game action to the view without redrawing the rest of the game
+     * @param events the merged changes, at most one per territory
+     */
+    void handleEvents(List<GameEvent> events);
+
+    /**
+     * adds an entry to the action log, the view decides if and when it is formatted into text
+     * @param event the entry to add
      */
-    void printLine (String str);
+    void log(LogEvent event);
 }
 
 
@@ -0,0 +1,165 @@
+import javax.swing.*;
+import java.util.*;
+
+/**
+ * The leaderboard shown next to the map, ranked by territories owned, then armies. Each player's row holds the
+ * stats the Player keeps up to date, and only the rows of players whose stats changed are moved, by removing
+ * them and inserting them again at their new rank. The text of a row is only built when the row is painted.
+ */
+public class Leaderboard extends AbstractListModel<String> {
+    private static final Comparator<Row> RANKING = Comparator.comparingInt(Row::getTerritories).reversed()
+            .thenComparing(Comparator.comparingInt(Row::getArmies).reversed())
+            .thenComparing(Row::getName);
+
+    private final List<Row> rows = new ArrayList<>(); // sorted by RANKING
+    private final Map<String, Row> rowsByName = new HashMap<>();
+
+    /**
+     * The stats of one player at one point in time, so they can be taken on the thread that changes the game
+     * and shown on the EDT
+     */
+    public static class Row {
+        private final String name;
+        private final int territories;
+        private final int armies;
+        private final int continents;
+        private final int reinforcements;
+
+        /**
+         * Constructor for class Row, reads the stats of a player
+         * @param player The player
+         */
+        public Row(Player player) {
+            name = player.getName();
+            territories = player.getAllLandOwnedSize();
+            armies = player.getTotalArmies();
+            continents = player.getContinentsHeld();
+            reinforcements = player.getReinforcements();
+        }
+
+        /**
+         * Get the player's name
+         * @return The player's name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the player's territory count
+         * @return The number of territories owned
+         */
+        public int getTerritories() {
+            return territories;
+        }
+
+        /**
+         * Get the player's army count
+         * @return The number of armies on all territories owned
+         */
+        public int getArmies() {
+            return armies;
+        }
+
+        /**
+         * Get the player's continent count
+         * @return The number of continents held
+         */
+        public int getContinents() {
+            return continents;
+        }
+
+        /**
+         * Get the player's reinforcements
+         * @return The number of armies received per turn
+         */
+        public int getReinforcements() {
+            return reinforcements;
+        }
+
+        @Override
+        public String toString() {
+            return name + " owns " + territories + " territories, " + armies + " armies, " + continents
+                    + " continent(s), +" + reinforcements + " armies per turn";
+        }
+    }
+
+    /**
+     * Replace every row, e.g. at the start of a game or after a game was loaded
+     * @param players The active players
+     */
+    public void reset(List<Player> players) {
+        int oldSize = rows.size();
+        rows.clear();
+        rowsByName.clear();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        for (Player player : players) {
+            Row row = new Row(player);
+            rows.add(row);
+            rowsByName.put(row.getName(), row);
+        }
+        rows.sort(RANKING);
+        if (!rows.isEmpty()) {
+            fireIntervalAdded(this, 0, rows.size() - 1);
+        }
+    }
+
+    /**
+     * Update a player's row and move it to its new rank
+     * @param row The player's new stats
+     */
+    public void update(Row row) {
+        Row old = rowsByName.put(row.getName(), row);
+        if (old != null) {
+            int from = Collections.binarySearch(rows, old, RANKING);
+            rows.remove(from);
+            int to = insertionPoint(row);
+            rows.add(to, row);
+            fireContentsChanged(this, Math.min(from, to), Math.max(from, to));
+        } else {
+            int to = insertionPoint(row);
+            rows.add(to, row);
+            fireIntervalAdded(this, to, to);
+        }
+    }
+
+    /**
+     * Remove an eliminated player's row
+     * @param name The player's name
+     */
+    public void remove(String name) {
+        Row old = rowsByName.remove(name);
+        if (old == null) {
+            return;
+        }
+        int index = Collections.binarySearch(rows, old, RANKING);
+        rows.remove(index);
+        fireIntervalRemoved(this, index, index);
+    }
+
+    /**
+     * Get a player's row by rank
+     * @param index The rank, starting from 0 for the leader
+     * @return The row
+     */
+    public Row getRow(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return rows.get(index).toString();
+    }
+
+    private int insertionPoint(Row row) {
+        int index = Collections.binarySearch(rows, row, RANKING);
+        return index < 0 ? -index - 1 : index;
+    }
+}
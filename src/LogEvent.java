@@ -0,0 +1,374 @@
+/**
+ * An entry of the action log, e.g. an attack and the dice that were rolled. Only the type, the players and
+ * territories involved and the numbers are recorded, the text is built by toString when a view shows the entry,
+ * so a game without views never builds log text. Names of players and territories never change, and the numbers
+ * are copied when the event is created, so an event can be formatted later on another thread.
+ */
+public class LogEvent {
+    /**
+     * The kinds of action log entries
+     */
+    public enum Type {PLACED, MOVED, MOVE_FAILED, ATTACKED, BLITZED, CONQUERED, ELIMINATED, TURN_ENDED}
+
+    /**
+     * The number of faces of a die
+     */
+    public static final int DICE_FACES = 6;
+
+    private static final int ROLL_BITS = 3; // a die from 1 to 6 fits in 3 bits
+
+    private final Type type;
+    private final Player player;
+    private final Territory from; // the territory moved or attacked from, or placed into
+    private final Territory to; // the territory moved to or attacked
+    private int armies; // placed, moved or transferred
+    private int rounds;
+    private int attackDice;
+    private int attackRolls; // packed by packRolls
+    private int defendDice;
+    private int defendRolls;
+    private int[] faces; // a blitz's count of each number rolled, the attacker's then the defender's
+    private int attackLosses;
+    private int attackLeft;
+    private int defendLosses;
+    private int defendLeft;
+    private boolean conquered;
+
+    private LogEvent(Type type, Player player, Territory from, Territory to) {
+        this.type = type;
+        this.player = player;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Create the entry for armies placed into a territory
+     * @param territory The territory, after the armies were placed
+     * @param armies The number of armies placed
+     * @return The entry
+     */
+    public static LogEvent placed(Territory territory, int armies) {
+        LogEvent event = new LogEvent(Type.PLACED, territory.getOwner(), territory, null);
+        event.armies = armies;
+        event.defendLeft = territory.getNumArmies();
+        return event;
+    }
+
+    /**
+     * Create the entry for armies moved at the end of a turn
+     * @param from The territory the armies were moved from
+     * @param to The territory the armies were moved to
+     * @param armies The number of armies moved
+     * @return The entry
+     */
+    public static LogEvent moved(Territory from, Territory to, int armies) {
+        LogEvent event = new LogEvent(Type.MOVED, from.getOwner(), from, to);
+        event.armies = armies;
+        return event;
+    }
+
+    /**
+     * Create the entry for a move that could not be made
+     * @return The entry
+     */
+    public static LogEvent moveFailed() {
+        return new LogEvent(Type.MOVE_FAILED, null, null, null);
+    }
+
+    /**
+     * Create the entry for one round of an attack, after the losses were removed
+     * @param attacking The attacking territory
+     * @param defending The defending territory
+     * @param attackRolls The attacker's dice, only the first attackDice are read
+     * @param attackDice The number of dice the attacker rolled
+     * @param defendRolls The defender's dice, only the first defendDice are read
+     * @param defendDice The number of dice the defender rolled
+     * @param attackLosses The armies the attacker lost
+     * @param defendLosses The armies the defender lost
+     * @param conquered true if the defending territory has no armies left
+     * @return The entry
+     */
+    public static LogEvent attacked(Territory attacking, Territory defending, int[] attackRolls, int attackDice,
+                                    int[] defendRolls, int defendDice, int attackLosses, int defendLosses,
+                                    boolean conquered) {
+        LogEvent event = new LogEvent(Type.ATTACKED, attacking.getOwner(), attacking, defending);
+        event.attackDice = attackDice;
+        event.attackRolls = packRolls(attackRolls, attackDice);
+        event.defendDice = defendDice;
+        event.defendRolls = packRolls(defendRolls, defendDice);
+        event.setLosses(attacking, defending, attackLosses, defendLosses, conquered);
+        return event;
+    }
+
+    /**
+     * Create the entry for a blitz, after all its rounds
+     * @param attacking The attacking territory
+     * @param defending The defending territory
+     * @param rounds The number of rounds rolled
+     * @param attackLosses The armies the attacker lost in all rounds
+     * @param defendLosses The armies the defender lost in all rounds
+     * @param conquered true if the defending territory has no armies left
+     * @param faces How often each number was rolled in all rounds, DICE_FACES counts for the attacker then
+     *              DICE_FACES for the defender, copied
+     * @return The entry
+     */
+    public static LogEvent blitzed(Territory attacking, Territory defending, int rounds, int attackLosses,
+                                   int defendLosses, boolean conquered, int[] faces) {
+        LogEvent event = new LogEvent(Type.BLITZED, attacking.getOwner(), attacking, defending);
+        event.rounds = rounds;
+        event.faces = faces.clone();
+        event.setLosses(attacking, defending, attackLosses, defendLosses, conquered);
+        return event;
+    }
+
+    /**
+     * Create the entry for a territory that was conquered
+     * @param player The player who conquered it
+     * @param armies The number of armies transferred into it
+     * @return The entry
+     */
+    public static LogEvent conquered(Player player, int armies) {
+        LogEvent event = new LogEvent(Type.CONQUERED, player, null, null);
+        event.armies = armies;
+        return event;
+    }
+
+    /**
+     * Create the entry for a player who lost all their territories
+     * @param player The eliminated player
+     * @return The entry
+     */
+    public static LogEvent eliminated(Player player) {
+        return new LogEvent(Type.ELIMINATED, player, null, null);
+    }
+
+    /**
+     * Create the entry for the end of a player's turn
+     * @param player The player whose turn ended
+     * @return The entry
+     */
+    public static LogEvent turnEnded(Player player) {
+        return new LogEvent(Type.TURN_ENDED, player, null, null);
+    }
+
+    private void setLosses(Territory attacking, Territory defending, int attackLosses, int defendLosses, boolean conquered) {
+        this.attackLosses = attackLosses;
+        this.attackLeft = attacking.getNumArmies();
+        this.defendLosses = defendLosses;
+        this.defendLeft = defending.getNumArmies();
+        this.conquered = conquered;
+    }
+
+    /**
+     * Get the kind of entry
+     * @return The type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the player who acted
+     * @return The player, or null for a failed move
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the territory moved or attacked from, or placed into
+     * @return The territory, or null if the entry has none
+     */
+    public Territory getFrom() {
+        return from;
+    }
+
+    /**
+     * Get the territory moved to or attacked
+     * @return The territory, or null if the entry has none
+     */
+    public Territory getTo() {
+        return to;
+    }
+
+    /**
+     * Get the number of armies placed, moved or transferred
+     * @return The armies
+     */
+    public int getArmies() {
+        return armies;
+    }
+
+    /**
+     * Get the number of rounds of a blitz
+     * @return The rounds, 0 for other entries
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Get the number of dice the attacker rolled
+     * @return The dice, 0 if the entry is not an attack
+     */
+    public int getAttackDice() {
+        return attackDice;
+    }
+
+    /**
+     * Get one of the attacker's dice, sorted from highest to lowest
+     * @param i The die, less than getAttackDice()
+     * @return The rolled number from 1 to 6
+     */
+    public int getAttackRoll(int i) {
+        return unpackRoll(attackRolls, i);
+    }
+
+    /**
+     * Get the number of dice the defender rolled
+     * @return The dice, 0 if the entry is not an attack
+     */
+    public int getDefendDice() {
+        return defendDice;
+    }
+
+    /**
+     * Get one of the defender's dice, sorted from highest to lowest
+     * @param i The die, less than getDefendDice()
+     * @return The rolled number from 1 to 6
+     */
+    public int getDefendRoll(int i) {
+        return unpackRoll(defendRolls, i);
+    }
+
+    /**
+     * Get how often the attacker rolled a number, in all rounds of a blitz
+     * @param face The number from 1 to 6
+     * @return The count, 0 if the entry is not an attack or blitz
+     */
+    public int getAttackFaceCount(int face) {
+        return faces != null ? faces[face - 1] : countFace(attackRolls, attackDice, face);
+    }
+
+    /**
+     * Get how often the defender rolled a number, in all rounds of a blitz
+     * @param face The number from 1 to 6
+     * @return The count, 0 if the entry is not an attack or blitz
+     */
+    public int getDefendFaceCount(int face) {
+        return faces != null ? faces[DICE_FACES + face - 1] : countFace(defendRolls, defendDice, face);
+    }
+
+    /**
+     * Get the armies the attacker lost
+     * @return The losses
+     */
+    public int getAttackLosses() {
+        return attackLosses;
+    }
+
+    /**
+     * Get the armies the defender lost
+     * @return The losses
+     */
+    public int getDefendLosses() {
+        return defendLosses;
+    }
+
+    /**
+     * Checks if the attack conquered the defending territory
+     * @return true if conquered, false otherwise
+     */
+    public boolean isConquered() {
+        return conquered;
+    }
+
+    /**
+     * Formats the entry as it is shown in the action log, ending with a blank line after a player's action
+     * @return The text of the entry, one or more lines
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case PLACED:
+                return player.getName() + " has placed " + armies + " armies into " + from.getName()
+                        + " which now has " + defendLeft + " armies\n";
+            case MOVED:
+                return player.getName() + " has moved " + armies + " armies from " + from.getName() + " to "
+                        + to.getName() + "\nMove phase is over\n";
+            case MOVE_FAILED:
+                return "some how u messed up tough luck";
+            case ATTACKED: {
+                String text = player.getName() + " is attacking " + to.getName() + " with " + from.getName() + "!\n"
+                        + "Attacker rolled " + attackDice + " dice: " + formatRolls(attackRolls, attackDice) + "\n"
+                        + "Defender rolled " + defendDice + " dice: " + formatRolls(defendRolls, defendDice) + "\n";
+                if (conquered) {
+                    return text;
+                }
+                return text + "\nThe attacking territory lost " + attackLosses + " unit(s)! It has " + attackLeft
+                        + " unit(s) left.\nThe defending territory lost " + defendLosses + " unit(s)! It has "
+                        + defendLeft + " unit(s) left.\n";
+            }
+            case BLITZED:
+                return player.getName() + " blitzed " + to.getName() + " from " + from.getName() + " for " + rounds
+                        + " round(s)!\nThe attacking territory lost " + attackLosses + " unit(s)! It has "
+                        + attackLeft + " unit(s) left.\n" + (conquered
+                        ? "The defending territory lost all " + defendLosses + " unit(s)!\n"
+                        : "The defending territory lost " + defendLosses + " unit(s)! It has " + defendLeft + " unit(s) left.\n");
+            case CONQUERED:
+                return "The defending territory lost all units and was conquered by " + player.getName() + "!\n"
+                        + armies + " armies were transferred to conquered land\n";
+            case ELIMINATED:
+                return player.getName() + " has lost all their territories! They have been eliminated.\n";
+            case TURN_ENDED:
+                return player.getName() + " has ended their turn\n";
+            default:
+                return type.name();
+        }
+    }
+
+    /**
+     * Packs rolled dice into an int so the event does not keep the game's reused dice array
+     */
+    private static int packRolls(int[] rolls, int numDice) {
+        int packed = 0;
+        for (int i = 0; i < numDice; i++) {
+            packed |= rolls[i] << (i * ROLL_BITS);
+        }
+        return packed;
+    }
+
+    /**
+     * Counts the dice packed by packRolls that show a number
+     */
+    private static int countFace(int packed, int numDice, int face) {
+        int count = 0;
+        for (int i = 0; i < numDice; i++) {
+            if (unpackRoll(packed, i) == face) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads one die from dice packed by packRolls
+     */
+    private static int unpackRoll(int packed, int i) {
+        return (packed >> (i * ROLL_BITS)) & ((1 << ROLL_BITS) - 1);
+    }
+
+    /**
+     * Format packed dice the same way as Arrays.toString, e.g. [6, 4, 1]
+     */
+    private static String formatRolls(int packed, int numDice) {
+        StringBuilder output = new StringBuilder("[");
+        for (int i = 0; i < numDice; i++) {
+            if (i > 0) {
+                output.append(", ");
+            }
+            output.append(unpackRoll(packed, i));
+        }
+        return output.append(']').toString();
+    }
+}
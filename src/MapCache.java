@@ -0,0 +1,294 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A directory of compiled maps, one binary file per map named after a hash of the map's XML. A map is written
+ * the first time its XML is imported, and later imports of the same XML map the file and build the territories
+ * and adjacency arrays straight from it, without parsing or validating the XML again.
+ *
+ * File format (big endian):
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * int     number of continents, then for each in ID order: string ID, string name, int bonus armies,
+ *         int number of territories
+ * int     number of territories, then for each in map index order: string ID, string name
+ * int     number of edges
+ * int[]   first edge of each territory, with one extra entry at the end, see TerritoryGraph
+ * int[]   neighbour index of each edge
+ * </pre>
+ * Strings are a short byte length followed by UTF-8 bytes. A file that cannot be read is treated as missing.
+ */
+public class MapCache {
+    /**
+     * The directory the GUI keeps compiled maps in
+     */
+    public static final String DEFAULT_DIRECTORY = "mapcache";
+
+    /**
+     * The first four bytes of every compiled map, "RMAP"
+     */
+    public static final int MAGIC = 0x524d4150;
+
+    /**
+     * The version of the format written, files of another version are compiled again
+     */
+    public static final short VERSION = 1;
+
+    private final Path directory;
+
+    /**
+     * A compiled map, its continents by ID and its compiled territories
+     */
+    public static class CompiledMap {
+        private final Map<String, Continent> continents;
+        private final TerritoryGraph graph;
+
+        private CompiledMap(Map<String, Continent> continents, TerritoryGraph graph) {
+            this.continents = continents;
+            this.graph = graph;
+        }
+
+        /**
+         * Compile a map that was just parsed from its XML
+         * @param continents The map's continents by ID
+         */
+        public CompiledMap(Map<String, Continent> continents) {
+            this(continents, new TerritoryGraph(continents));
+        }
+
+        /**
+         * Get the map's continents
+         * @return The continents by ID
+         */
+        public Map<String, Continent> getContinents() {
+            return continents;
+        }
+
+        /**
+         * Get the map's compiled territories and adjacency
+         * @return The graph
+         */
+        public TerritoryGraph getGraph() {
+            return graph;
+        }
+    }
+
+    /**
+     * Constructor for class MapCache
+     * @param directory The directory of the compiled maps, created if it does not exist
+     * @throws IOException If the directory cannot be created
+     */
+    public MapCache(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Hash the contents of a map's XML, the key its compiled map is cached under
+     * @param xml The XML
+     * @return The SHA-256 hash in hexadecimal
+     */
+    public static String hash(byte[] xml) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(xml);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Build a map from its compiled file
+     * @param hash The hash of the map's XML
+     * @return The map with new territories that nobody owns, or null if the map is not in the cache
+     * @throws IOException If the compiled file cannot be read or is not a valid compiled map
+     */
+    public CompiledMap load(String hash) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(getFile(hash), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("Not a compiled map of version " + VERSION);
+            }
+            int continentCount = count(buffer, 1);
+            String[] continentIds = new String[continentCount];
+            String[] continentNames = new String[continentCount];
+            int[] bonuses = new int[continentCount];
+            int[] continentSizes = new int[continentCount];
+            for (int i = 0; i < continentCount; i++) {
+                continentIds[i] = getString(buffer);
+                continentNames[i] = getString(buffer);
+                bonuses[i] = buffer.getInt();
+                continentSizes[i] = count(buffer, 1);
+            }
+
+            int size = count(buffer, 2 * Short.BYTES);
+            Territory[] territories = new Territory[size];
+            for (int i = 0; i < size; i++) {
+                String id = getString(buffer);
+                // The IDs of the neighbours are read from the graph if they are ever needed
+                territories[i] = new Territory(getString(buffer), id, null);
+            }
+
+            int edges = count(buffer, Integer.BYTES);
+            if (((long) size + 1 + edges) * Integer.BYTES > buffer.remaining()) {
+                throw new IOException("The compiled map is truncated");
+            }
+            int[] adjacentStart = new int[size + 1];
+            int[] adjacent = new int[edges];
+            buffer.asIntBuffer().get(adjacentStart).get(adjacent);
+            for (int i = 0; i < size; i++) {
+                if (adjacentStart[i] > adjacentStart[i + 1]) {
+                    throw new IOException("Invalid edges of territory " + i);
+                }
+            }
+            if (adjacentStart[0] != 0 || adjacentStart[size] != edges) {
+                throw new IOException("Invalid edge count");
+            }
+            for (int neighbour : adjacent) {
+                if (neighbour < 0 || neighbour >= size) {
+                    throw new IOException("Invalid neighbour " + neighbour);
+                }
+            }
+
+            Map<String, Continent> continents = new HashMap<>(continentCount * 2);
+            int first = 0;
+            for (int i = 0; i < continentCount; i++) {
+                if (first + continentSizes[i] > size) {
+                    throw new IOException("Invalid territory count of continent " + continentIds[i]);
+                }
+                List<Territory> onContinent = List.of(Arrays.copyOfRange(territories, first, first + continentSizes[i]));
+                continents.put(continentIds[i], new Continent(continentNames[i], onContinent, bonuses[i]));
+                first += continentSizes[i];
+            }
+            if (first != size) {
+                throw new IOException("Territories not on any continent");
+            }
+            return new CompiledMap(continents, new TerritoryGraph(territories, adjacentStart, adjacent));
+        } catch (RuntimeException e) {
+            // e.g. BufferUnderflowException
+            throw new IOException("Invalid compiled map " + hash, e);
+        }
+    }
+
+    /**
+     * Write a map's compiled file, replacing it if it exists
+     * @param hash The hash of the map's XML
+     * @param continents The map's continents by ID
+     * @param graph The map compiled from the continents
+     * @throws IOException If the file cannot be written
+     */
+    public void store(String hash, Map<String, Continent> continents, TerritoryGraph graph) throws IOException {
+        List<String> continentIds = new ArrayList<>(continents.keySet());
+        Collections.sort(continentIds);
+        int edges = graph.getAdjacentStart(graph.size());
+
+        int size = Integer.BYTES + Short.BYTES + Integer.BYTES * 3 + Integer.BYTES * (graph.size() + 1 + edges);
+        for (String id : continentIds) {
+            size += stringSize(id) + stringSize(continents.get(id).getName()) + Integer.BYTES * 2;
+        }
+        for (int i = 0; i < graph.size(); i++) {
+            size += stringSize(graph.getTerritory(i).getId()) + stringSize(graph.getTerritory(i).getName());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(continentIds.size());
+        for (String id : continentIds) {
+            Continent continent = continents.get(id);
+            putString(buffer, id);
+            putString(buffer, continent.getName());
+            buffer.putInt(continent.BONUS_ARMIES);
+            buffer.putInt(continent.getTerritoriesSize());
+        }
+        buffer.putInt(graph.size());
+        for (int i = 0; i < graph.size(); i++) {
+            putString(buffer, graph.getTerritory(i).getId());
+            putString(buffer, graph.getTerritory(i).getName());
+        }
+        buffer.putInt(edges);
+        for (int i = 0; i <= graph.size(); i++) {
+            buffer.putInt(graph.getAdjacentStart(i));
+        }
+        for (int edge = 0; edge < edges; edge++) {
+            buffer.putInt(graph.getAdjacent(edge));
+        }
+        buffer.flip();
+
+        // Games on other threads may compile the same map at the same time, so each writes its own temporary file
+        Path temp = Files.createTempFile(directory, hash, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temp, getFile(hash), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, getFile(hash), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Get the file a compiled map is cached in
+     * @param hash The hash of the map's XML
+     * @return The file
+     */
+    public Path getFile(String hash) {
+        return directory.resolve(hash + ".map");
+    }
+
+    /**
+     * Read a count and check the buffer can hold that many items of at least a size
+     */
+    private static int count(ByteBuffer buffer, int minItemSize) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / minItemSize) {
+            throw new IOException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    private static int stringSize(String text) {
+        return Short.BYTES + text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,182 @@
+import javax.swing.*;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * A TreeModel of the map that uses the game's Continent and Territory objects as its nodes instead of copying them
+ * into tree nodes, so a change only needs the territory's row to be repainted, and the text of a row is only built
+ * when the row is painted by the Renderer. The owner and armies shown are kept in the model and only change when
+ * the model is told, so rows can be painted on the EDT while AI turns change the game on another thread.
+ */
+public class MapTreeModel implements TreeModel {
+    private final Object root = "Map";
+    private final EventListenerList listeners = new EventListenerList();
+    private List<Continent> continents = new ArrayList<>();
+    private int[] positions = new int[0]; // position of each territory in its continent by index in the compiled map
+    private Player[] owners = new Player[0]; // shown owner of each territory by index
+    private int[] armies = new int[0]; // shown armies of each territory by index
+
+    /**
+     * Replace the map shown by the model, e.g. after a game was loaded
+     * @param continents The continents of the map by ID
+     */
+    public void setContinents(Map<String, Continent> continents) {
+        this.continents = new ArrayList<>(new TreeMap<>(continents).values());
+        int size = 0;
+        for (Continent continent : this.continents) {
+            size += continent.getTerritoriesSize();
+        }
+        positions = new int[size];
+        owners = new Player[size];
+        armies = new int[size];
+        for (Continent continent : this.continents) {
+            List<Territory> territories = continent.getTerritoryList();
+            for (int i = 0; i < territories.size(); i++) {
+                Territory territory = territories.get(i);
+                positions[territory.getIndex()] = i;
+                owners[territory.getIndex()] = territory.getOwner();
+                armies[territory.getIndex()] = territory.getNumArmies();
+            }
+        }
+
+        TreeModelEvent event = new TreeModelEvent(this, new Object[]{root});
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+
+    /**
+     * Change the owner and armies shown for a territory and repaint its row
+     * @param territory The territory that changed
+     * @param owner The territory's new owner
+     * @param numArmies The territory's new number of armies
+     */
+    public void territoryChanged(Territory territory, Player owner, int numArmies) {
+        owners[territory.getIndex()] = owner;
+        armies[territory.getIndex()] = numArmies;
+        TreeModelEvent event = new TreeModelEvent(this, new Object[]{root, territory.getContinent()},
+                new int[]{positions[territory.getIndex()]}, new Object[]{territory});
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesChanged(event);
+        }
+    }
+
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        if (parent == root) {
+            return continents.get(index);
+        }
+        return ((Continent) parent).getTerritoryList().get(index);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (parent == root) {
+            return continents.size();
+        }
+        if (parent instanceof Continent) {
+            return ((Continent) parent).getTerritoriesSize();
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return node instanceof Territory;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // The map cannot be edited through the tree
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == root) {
+            for (int i = 0; i < continents.size(); i++) {
+                if (continents.get(i) == child) {
+                    return i;
+                }
+            }
+        } else if (parent instanceof Continent && child instanceof Territory
+                && ((Territory) child).getContinent() == parent) {
+            return positions[((Territory) child).getIndex()];
+        }
+        return -1;
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+
+    /**
+     * Get the owner shown for a territory
+     * @param territory The territory
+     * @return The owner
+     */
+    public Player getOwner(Territory territory) {
+        return owners[territory.getIndex()];
+    }
+
+    /**
+     * Get the number of armies shown for a territory
+     * @param territory The territory
+     * @return The armies
+     */
+    public int getNumArmies(Territory territory) {
+        return armies[territory.getIndex()];
+    }
+
+    /**
+     * Get the adjacent territories of a territory, for the tooltip of its row
+     * @param node A node of the model
+     * @return The IDs of the adjacent territories, or null if the node is not a territory
+     */
+    public static String getAdjacentText(Object node) {
+        if (!(node instanceof Territory)) {
+            return null;
+        }
+        return "Adjacent Territories: " + ((Territory) node).getAdjacentList();
+    }
+
+    /**
+     * Renders the rows of a tree using a MapTreeModel. JTree only asks for the rows it paints, so the text of
+     * territories that are scrolled out of view is never built
+     */
+    public static class Renderer extends DefaultTreeCellRenderer {
+        @Override
+        public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
+                                                      boolean leaf, int row, boolean hasFocus) {
+            String text;
+            if (value instanceof Territory && tree.getModel() instanceof MapTreeModel) {
+                MapTreeModel model = (MapTreeModel) tree.getModel();
+                Territory territory = (Territory) value;
+                text = territory.getName() + " [" + territory.getId() + "] | Owner: " + model.getOwner(territory).getName()
+                        + " | Armies: " + model.getNumArmies(territory);
+            } else if (value instanceof Continent) {
+                text = ((Continent) value).getName();
+            } else {
+                text = String.valueOf(value);
+            }
+            return super.getTreeCellRendererComponent(tree, text, selected, expanded, leaf, row, hasFocus);
+        }
+    }
+}
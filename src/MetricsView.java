@@ -0,0 +1,75 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view that shows nothing and builds no text, it only records one game's attacks, conquests, eliminations and
+ * turns in a GameMetrics, which can be shared by every game on a server and read through JMX. The log entries it
+ * is sent are read but never formatted. A game sends its entries from one thread at a time, so the state of the
+ * game being recorded is kept in plain fields.
+ */
+public class MetricsView implements GameView {
+    private final GameMetrics metrics;
+    private int activePlayers;
+    private int attacksThisTurn = 0;
+    private long turnStart = System.nanoTime();
+    private final List<Long> eliminationTimes = new ArrayList<>();
+
+    /**
+     * Constructor for class MetricsView
+     * @param game The game to record, its players must have been initialized
+     * @param metrics The metrics to record the game in
+     */
+    public MetricsView(Game game, GameMetrics metrics) {
+        this.metrics = metrics;
+        activePlayers = game.getActivePlayers().size();
+    }
+
+    @Override
+    public void updateView(Game game) {
+        // e.g. after a load, times from before the load no longer mean anything
+        activePlayers = game.getActivePlayers().size();
+        attacksThisTurn = 0;
+        turnStart = System.nanoTime();
+        eliminationTimes.clear();
+    }
+
+    @Override
+    public void handleEvents(List<GameEvent> events) {
+        // Everything is recorded from the log entries, which arrive as they happen instead of once per batch
+    }
+
+    @Override
+    public void log(LogEvent event) {
+        switch (event.getType()) {
+            case ATTACKED:
+            case BLITZED:
+                attacksThisTurn++;
+                metrics.recordAttack(event);
+                break;
+
+            case CONQUERED:
+                metrics.recordConquest();
+                break;
+
+            case ELIMINATED:
+                metrics.recordElimination();
+                long now = System.nanoTime();
+                eliminationTimes.add(now);
+                if (--activePlayers == 1) {
+                    long[] eliminationToWin = new long[eliminationTimes.size()];
+                    for (int i = 0; i < eliminationToWin.length; i++) {
+                        eliminationToWin[i] = now - eliminationTimes.get(i);
+                    }
+                    metrics.recordWin(eliminationToWin);
+                }
+                break;
+
+            case TURN_ENDED:
+                long end = System.nanoTime();
+                metrics.recordTurn(attacksThisTurn, end - turnStart);
+                attacksThisTurn = 0;
+                turnStart = end;
+                break;
+        }
+    }
+}
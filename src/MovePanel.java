@@ -1,5 +1,6 @@
 import javax.swing.*;
 import java.awt.*;
+import java.util.Comparator;
 import java.util.stream.Collectors;
 
 /**
@@ -21,9 +22,10 @@ public class MovePanel extends JPanel {
         //initialize global JComponents
         DefaultListModel<Territory> ownedList = new DefaultListModel<>();
         ownedList.addAll(
-                player.getLandWithAdjacentAlly(game)
+                player.getLandWithAdjacentAlly()
                         .stream()
                         .filter(territory -> territory.getNumArmies() > 1)
+                        .sorted(Comparator.comparing(Territory::getId))
                         .collect(Collectors.toList())
         );
         ownedTerritories = new JList<>(ownedList);
@@ -42,7 +44,7 @@ public class MovePanel extends JPanel {
         ownedTerritories.addListSelectionListener(e -> {
             Territory moveFrom = ownedTerritories.getSelectedValue();
             adjacentList.clear();
-            adjacentList.addAll(moveFrom.getAdjacentFriendly(game));
+            adjacentList.addAll(moveFrom.getAdjacentFriendly());
             movePossibility.setEnabled(adjacentList.size() > 0);
             movePossibility.setPaintLabels(true);
             movePossibility.setMinimum(1);
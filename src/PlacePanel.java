@@ -16,31 +16,29 @@ public class PlacePanel extends JPanel {
      * given armies at start of turn
      *
      * @param currPlayer PLayer object of current player
-     * @param continents Hashmap of continents
      */
-    public PlacePanel(Player currPlayer, Map<String, Continent> continents) {
-        armiesRemaining = 3 + (currPlayer.getAllLandOwnedSize() - 9) / 3;
-        for (Continent continent : continents.values()) {
-            Optional<Player> conqueror = continent.getConqueror();
-            if (conqueror.isPresent() && conqueror.get().equals(currPlayer)) armiesRemaining += continent.BONUS_ARMIES;
-        }
+    public PlacePanel(Player currPlayer) {
+        armiesRemaining = currPlayer.getReinforcements();
 
         //GUI for the place phase
         toAdd = new HashMap<>();
         DefaultListModel<Territory> mapList = new DefaultListModel<>();
 
-        //creates a deep copy of current map to update place panel map but not main menu map (leave that to model calls)
-        ArrayList<Territory> copy = new ArrayList<>();
-        for (Territory territory : currPlayer.getAllLandOwned()) {
-            Territory temp = new Territory(territory.getName(), territory.getId(), territory.getAdjacentList());
-            temp.setNumArmies(territory.getNumArmies());
-            temp.setPlayer(territory.getOwner());
-            copy.add(temp);
-        }
-        copy.sort(Comparator.comparing(Territory::getId));
-        mapList.addAll(copy);
+        //armies are only placed by the model, the list shows the armies chosen so far on top of the current ones
+        ArrayList<Territory> owned = new ArrayList<>(currPlayer.getAllLandOwned());
+        owned.sort(Comparator.comparing(Territory::getId));
+        mapList.addAll(owned);
 
         JList <Territory> map = new JList<>(mapList);
+        map.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                Territory ter = (Territory) value;
+                String text = ter.getName() + " [" + ter.getId() + "] | Armies: "
+                        + (ter.getNumArmies() + toAdd.getOrDefault(ter.getId(), 0));
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
         map.setFixedCellWidth(700);
         JScrollPane mapScrollPane = new JScrollPane(map);
         JLabel territoriesLabel = new JLabel("Owned territories");
@@ -54,7 +52,6 @@ public class PlacePanel extends JPanel {
                 JOptionPane.showMessageDialog(this,"You have not specified which territory you want to add armies to.");
             } else if (armiesRemaining > 0) {
                 Territory ter = map.getSelectedValue();
-                ter.addArmy(1);
 
                 if (toAdd.containsKey(ter.getId())) {
                     toAdd.replace(ter.getId(), toAdd.get(ter.getId()) + 1);
@@ -64,7 +61,7 @@ public class PlacePanel extends JPanel {
 
                 armiesRemaining--;
                 numArmiesLabel.setText("You have " + armiesRemaining + " armies left");
-                SwingUtilities.updateComponentTreeUI(map);
+                map.repaint();
             }
         });
 
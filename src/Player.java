@@ -1,4 +1,3 @@
-import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -9,10 +8,15 @@ import java.util.*;
  *
  * @author Phuc La
  */
-public class Player implements Serializable {
+public class Player {
     private final String name;
     private final boolean AI;
     private final List<Territory> ownedlands;
+    private final FrontierSet landWithAdjacentEnemy; //owned territories with at least one enemy neighbour
+    private final FrontierSet landWithAdjacentAlly; //owned territories with at least one friendly neighbour
+    private int continentsHeld = 0;
+    private int continentBonus = 0; //sum of the bonus armies of every continent held
+    private int totalArmies = 0; //sum of the armies on every territory owned, kept up to date by Territory
 
     /**
      * Constructor for the player that will play the game
@@ -23,6 +27,8 @@ public class Player implements Serializable {
         this.name = name;
         this.AI = AI;
         ownedlands = new LinkedList<>();
+        landWithAdjacentEnemy = new FrontierSet();
+        landWithAdjacentAlly = new FrontierSet();
     }
 
     /**
@@ -80,77 +86,133 @@ public class Player implements Serializable {
 
     /**
      * Checks if there's friendly territories adjacent to player's owned territories
-     * @param game current state of game
      * @return true if at least 1 of owned territories have friendly adjacent
      *              and owned territory has more than 1 army, false otherwise
      */
-    public boolean allLandOwnedAdjacentIsFriendly(Game game){
-        int friendlyTerr = 0;
-        for (Territory terr : ownedlands){
-            for (String id : terr.getAdjacentList()){
-                Territory tempTerritory = game.findTerritory(id).get();
-                if (tempTerritory.getOwner().equals(this) && terr.getNumArmies()>1){
-                    friendlyTerr++;
-                    break;
-                }
-            }
-        }
-        return friendlyTerr > 0;
+    public boolean allLandOwnedAdjacentIsFriendly(){
+        return anyLandWithMoreThan1Army(landWithAdjacentAlly);
     }
 
     /**
      * Checks if there's enemy territories adjacent to player's owned territories
-     * @param game current state of game
      * @return true if at least 1 of owned territories have enemy adjacent
      *              and owned territory has more than 1 army, false otherwise
      */
-    public boolean allLandOwnedAdjacentIsEnemy(Game game){
-        int enemyTerr = 0;
-        for (Territory terr : ownedlands){
-            for (String id : terr.getAdjacentList()){
-                Territory tempTerritory = game.findTerritory(id).get();
-                if (!tempTerritory.getOwner().equals(this) && terr.getNumArmies()>1){
-                    enemyTerr++;
-                    break;
-                }
+    public boolean allLandOwnedAdjacentIsEnemy(){
+        return anyLandWithMoreThan1Army(landWithAdjacentEnemy);
+    }
+
+    private boolean anyLandWithMoreThan1Army(FrontierSet frontier) {
+        for (int i = 0; i < frontier.size(); i++) {
+            if (frontier.asList().get(i).getNumArmies() > 1) {
+                return true;
             }
         }
-        return enemyTerr > 0;
+        return false;
     }
 
     /**
-     * Get a list containing all owned territories with an enemy adjacent
-     * @param gameState the game that is used to search for territories by id string from listTerritories
-     * @return List containing all matching territories
+     * Get all owned territories with an enemy adjacent. The frontier is kept up to date as territories
+     * change owner, so this does not scan the map
+     * @return Live, read-only list containing all matching territories in no particular order
      */
-    public List<Territory> getLandWithAdjacentEnemy(Game gameState) {
-        return getLandWithAdjacentAllyOrEnemy(gameState, false);
+    public List<Territory> getLandWithAdjacentEnemy() {
+        return landWithAdjacentEnemy.asList();
     }
 
     /**
-     * Get a list containing all owned territories with a friendly adjacent
-     * @param gameState the game that is used to search for territories by id string from listTerritories
-     * @return List containing all matching territories
+     * Get all owned territories with a friendly adjacent. The frontier is kept up to date as territories
+     * change owner, so this does not scan the map
+     * @return Live, read-only list containing all matching territories in no particular order
      */
-    public List<Territory> getLandWithAdjacentAlly(Game gameState) {
-        return getLandWithAdjacentAllyOrEnemy(gameState, true);
+    public List<Territory> getLandWithAdjacentAlly() {
+        return landWithAdjacentAlly.asList();
     }
 
-    private List<Territory> getLandWithAdjacentAllyOrEnemy(Game gameState, boolean withAlly) {
-        List<Territory> output = new ArrayList<>();
-        for (Territory terr : ownedlands) {
-            List<String> adjacent = terr.getAdjacentList();
-            boolean foundValidAdjacent = false;
-            for (int i = 0; !foundValidAdjacent && i < adjacent.size(); i++) {
-                Optional<Territory> territory = gameState.findTerritory(adjacent.get(i));
-                if (territory.isPresent() && (territory.get().getOwner() == this) == withAlly) {
-                    output.add(terr);
-                    foundValidAdjacent = true;
-                }
-            }
+    /**
+     * Re-evaluates whether an owned territory is on this player's frontiers after the owner of it or one of
+     * its neighbours changed
+     * @param ter the owned territory to re-evaluate
+     */
+    public void updateFrontier(Territory ter) {
+        if (ter.getEnemyAdjacentCount() > 0) {
+            landWithAdjacentEnemy.add(ter);
+        } else {
+            landWithAdjacentEnemy.remove(ter);
         }
-        output.sort(Comparator.comparing(Territory::getId));
-        return output;
+        if (ter.getFriendlyAdjacentCount() > 0) {
+            landWithAdjacentAlly.add(ter);
+        } else {
+            landWithAdjacentAlly.remove(ter);
+        }
+    }
+
+    /**
+     * Removes a territory that is no longer owned by this player from its frontiers
+     * @param ter the territory to remove
+     */
+    public void removeFrontier(Territory ter) {
+        landWithAdjacentEnemy.remove(ter);
+        landWithAdjacentAlly.remove(ter);
+    }
+
+    /**
+     * Records that the player now holds every territory on a continent
+     * @param continent the continent that was conquered
+     */
+    public void addConqueredContinent(Continent continent) {
+        continentsHeld++;
+        continentBonus += continent.BONUS_ARMIES;
+    }
+
+    /**
+     * Records that the player no longer holds every territory on a continent
+     * @param continent the continent that was lost
+     */
+    public void removeConqueredContinent(Continent continent) {
+        continentsHeld--;
+        continentBonus -= continent.BONUS_ARMIES;
+    }
+
+    /**
+     * Get the number of continents the player holds entirely
+     * @return int amount of continents held
+     */
+    public int getContinentsHeld() {
+        return continentsHeld;
+    }
+
+    /**
+     * Get the bonus armies the player receives for the continents they hold
+     * @return int total continent bonus
+     */
+    public int getContinentBonus() {
+        return continentBonus;
+    }
+
+    /**
+     * Records a change in the number of armies on one of the player's territories
+     * @param delta the number of armies added, negative if armies were removed
+     */
+    public void armiesChanged(int delta) {
+        totalArmies += delta;
+    }
+
+    /**
+     * Get the number of armies on all the player's territories
+     * @return int total armies
+     */
+    public int getTotalArmies() {
+        return totalArmies;
+    }
+
+    /**
+     * Get the number of armies the player receives at the start of their turn: a third of their territories,
+     * at least 3, plus the bonus of every continent they hold
+     * @return int armies to place
+     */
+    public int getReinforcements() {
+        return Math.max(3, ownedlands.size() / 3) + continentBonus;
     }
 
     /**
@@ -0,0 +1,13 @@
+/**
+ * Interface through which the game asks a human player for the decisions it needs while another player is
+ * taking their turn. Implementations may prompt the user in any way; the game itself does not depend on a GUI.
+ */
+public interface PlayerDecisions {
+    /**
+     * asks the owner of a territory how many armies they want to defend it with
+     * @param defending the territory being attacked, owned by a human player
+     * @param maxArmies the most armies the owner may defend with
+     * @return the number of armies to defend with, between 1 and maxArmies inclusive
+     */
+    int chooseDefendArmies(Territory defending, int maxArmies);
+}
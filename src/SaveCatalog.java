@@ -0,0 +1,410 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Named save slots in a directory, one GameSnapshot file per slot, and an index file with a fixed-size record of
+ * each slot's players, turn, map fingerprint and the time it was saved. Listing the saves maps the index and only
+ * decodes the records that are read, so a load screen with thousands of saves opens no saved game.
+ *
+ * Index format (big endian): int MAGIC, short VERSION, short RECORD_SIZE, int number of records, then the records
+ * <pre>
+ * short   slot name length, then NAME_BYTES bytes of UTF-8
+ * byte    number of players
+ * short   player names length, then PLAYERS_BYTES bytes of UTF-8, the names joined by ", " and cut short if needed
+ * int     turn
+ * long    map fingerprint
+ * long    time saved, in milliseconds since the epoch
+ * </pre>
+ * A slot's record is written before the number of records is raised, so a crash leaves the index readable.
+ */
+public class SaveCatalog {
+    /**
+     * The directory the GUI keeps its save slots in
+     */
+    public static final String DEFAULT_DIRECTORY = "saves";
+
+    /**
+     * The first four bytes of every index, "RIDX"
+     */
+    public static final int MAGIC = 0x52494458;
+
+    /**
+     * The version of the index format written
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The longest slot name in UTF-8 bytes
+     */
+    public static final int NAME_BYTES = 32;
+
+    /**
+     * The space for the player names in each record in UTF-8 bytes
+     */
+    public static final int PLAYERS_BYTES = 96;
+
+    /**
+     * The size of each record in bytes, with room left for later versions
+     */
+    public static final int RECORD_SIZE = 160;
+
+    private static final String INDEX_FILE = "index.bin";
+    private static final int HEADER_SIZE = Integer.BYTES + 2 * Short.BYTES + Integer.BYTES;
+    private static final int COUNT_OFFSET = Integer.BYTES + 2 * Short.BYTES;
+    // Offset of the time saved in a record
+    private static final int SAVED_AT_OFFSET = 2 * Short.BYTES + NAME_BYTES + 1 + PLAYERS_BYTES + Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final Path index;
+
+    /**
+     * The index record of one save slot
+     */
+    public static class Entry {
+        private final String slot;
+        private final int playerCount;
+        private final String players;
+        private final int turn;
+        private final long mapFingerprint;
+        private final long savedAt;
+
+        private Entry(String slot, int playerCount, String players, int turn, long mapFingerprint, long savedAt) {
+            this.slot = slot;
+            this.playerCount = playerCount;
+            this.players = players;
+            this.turn = turn;
+            this.mapFingerprint = mapFingerprint;
+            this.savedAt = savedAt;
+        }
+
+        /**
+         * Get the slot's name
+         * @return The name
+         */
+        public String getSlot() {
+            return slot;
+        }
+
+        /**
+         * Get the number of active players in the saved game
+         * @return The number of players
+         */
+        public int getPlayerCount() {
+            return playerCount;
+        }
+
+        /**
+         * Get the names of the active players in the saved game
+         * @return The names joined by ", ", cut short if they did not fit in the record
+         */
+        public String getPlayers() {
+            return players;
+        }
+
+        /**
+         * Get the turn of the saved game
+         * @return The turn
+         */
+        public int getTurn() {
+            return turn;
+        }
+
+        /**
+         * Get the fingerprint of the map the saved game is played on
+         * @return The fingerprint, see TerritoryGraph.getFingerprint()
+         */
+        public long getMapFingerprint() {
+            return mapFingerprint;
+        }
+
+        /**
+         * Get the time the game was saved
+         * @return The time in milliseconds since the epoch
+         */
+        public long getSavedAt() {
+            return savedAt;
+        }
+    }
+
+    /**
+     * Constructor for class SaveCatalog
+     * @param directory The directory of the save slots, created if it does not exist
+     * @throws IOException If the directory cannot be created
+     */
+    public SaveCatalog(Path directory) throws IOException {
+        this.directory = directory;
+        index = directory.resolve(INDEX_FILE);
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Checks if a name can be used for a save slot
+     * @param slot The name
+     * @return true if the name is letters, digits, spaces, '-' and '_' and fits in a record, false otherwise
+     */
+    public static boolean isValidSlot(String slot) {
+        return slot != null && !slot.trim().isEmpty() && slot.length() <= NAME_BYTES
+                && slot.matches("[A-Za-z0-9 _-]+");
+    }
+
+    /**
+     * Write a snapshot to a slot and record it in the index, replacing what the slot held
+     * @param slot The slot's name
+     * @param snapshot The snapshot to save
+     * @throws IOException If the slot or index cannot be written
+     * @throws IllegalArgumentException If the name cannot be used for a slot
+     */
+    public synchronized void save(String slot, GameSnapshot snapshot) throws IOException {
+        snapshot.save(getSlotFile(slot));
+
+        StringBuilder players = new StringBuilder();
+        for (int i = 0; i < snapshot.getPlayerCount(); i++) {
+            if (i > 0) {
+                players.append(", ");
+            }
+            players.append(snapshot.getPlayerName(i));
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        putString(record, slot, NAME_BYTES);
+        record.put((byte) snapshot.getPlayerCount());
+        putString(record, players.toString(), PLAYERS_BYTES);
+        record.putInt(snapshot.getTurn());
+        record.putLong(snapshot.getMapFingerprint());
+        record.putLong(System.currentTimeMillis());
+        record.clear();
+
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            List<Entry> entries = read(channel);
+            int position = entries.size();
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).getSlot().equals(slot)) {
+                    position = i;
+                    break;
+                }
+            }
+            if (entries.isEmpty()) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putInt(0);
+                header.flip();
+                writeFully(channel, header, 0);
+            }
+            writeFully(channel, record, HEADER_SIZE + (long) position * RECORD_SIZE);
+            if (position == entries.size()) {
+                ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).putInt(0, position + 1);
+                writeFully(channel, count, COUNT_OFFSET);
+            }
+        }
+    }
+
+    /**
+     * Read the snapshot saved in a slot
+     * @param slot The slot's name
+     * @return The snapshot
+     * @throws IOException If the slot cannot be read or holds no saved game
+     */
+    public GameSnapshot load(String slot) throws IOException {
+        return GameSnapshot.load(getSlotFile(slot));
+    }
+
+    /**
+     * List the save slots, the most recently saved first. The list reads a mapping of the index: ordering it
+     * only reads the time each record was saved, and getting an entry decodes only that record. Slots saved
+     * after this call are not in the list
+     * @return The slots, empty if nothing was saved yet
+     * @throws IOException If the index cannot be read or is not an index
+     */
+    public List<Entry> entries() throws IOException {
+        if (!Files.exists(index)) {
+            return Collections.emptyList();
+        }
+        Records records;
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            records = read(channel);
+        }
+        Integer[] order = new Integer[records.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // Slots saved in the same millisecond are listed the most recently created first
+        Arrays.sort(order, (a, b) -> records.getSavedAt(a) != records.getSavedAt(b)
+                ? Long.compare(records.getSavedAt(b), records.getSavedAt(a)) : Integer.compare(b, a));
+        return new AbstractList<Entry>() {
+            @Override
+            public Entry get(int i) {
+                return records.get(order[i]);
+            }
+
+            @Override
+            public int size() {
+                return order.length;
+            }
+        };
+    }
+
+    /**
+     * Get the file a slot's snapshot is saved in
+     * @param slot The slot's name
+     * @return The file
+     * @throws IllegalArgumentException If the name cannot be used for a slot
+     */
+    public Path getSlotFile(String slot) {
+        return directory.resolve(checkSlot(slot) + ".sav");
+    }
+
+    /**
+     * Get the file a slot's action log offsets are saved in, see ActionLog.save
+     * @param slot The slot's name
+     * @return The file
+     * @throws IllegalArgumentException If the name cannot be used for a slot
+     */
+    public Path getLogFile(String slot) {
+        return directory.resolve(checkSlot(slot) + ".log");
+    }
+
+    /**
+     * Get the files the action logs of the slots are saved in, see ActionLog.compact
+     * @return The log files that exist
+     * @throws IOException If the directory cannot be listed
+     */
+    public List<Path> getLogFiles() throws IOException {
+        List<Path> logFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.log")) {
+            for (Path file : files) {
+                logFiles.add(file);
+            }
+        }
+        return logFiles;
+    }
+
+    private static String checkSlot(String slot) {
+        if (!isValidSlot(slot)) {
+            throw new IllegalArgumentException("Invalid save slot name: " + slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Map the records of an index
+     * @param channel The index, empty if nothing was saved yet
+     * @return A list decoding the mapped records as they are read, in index order
+     */
+    private static Records read(FileChannel channel) throws IOException {
+        if (channel.size() == 0) {
+            return new Records(null, 0, RECORD_SIZE);
+        }
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException("The save index is truncated");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Keep reading until the header is read
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a save index");
+        }
+        short version = header.getShort();
+        int recordSize = header.getShort() & 0xffff;
+        if (version < 1 || version > VERSION || recordSize < RECORD_SIZE) {
+            throw new IOException("Unsupported save index version " + version);
+        }
+        // Records past the end of the file were never completely written
+        int count = (int) Math.max(0, Math.min(header.getInt(), (channel.size() - HEADER_SIZE) / recordSize));
+        MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) count * recordSize);
+        return new Records(records, count, recordSize);
+    }
+
+    /**
+     * The mapped records of an index, decoded as they are read
+     */
+    private static class Records extends AbstractList<Entry> {
+        private final ByteBuffer records;
+        private final int count;
+        private final int recordSize;
+
+        Records(ByteBuffer records, int count, int recordSize) {
+            this.records = records;
+            this.count = count;
+            this.recordSize = recordSize;
+        }
+
+        @Override
+        public Entry get(int i) {
+            checkIndex(i);
+            // Absolute reads, so the list can be read from several threads
+            int position = i * recordSize;
+            String slot = getString(records, position, NAME_BYTES);
+            position += Short.BYTES + NAME_BYTES;
+            int playerCount = records.get(position) & 0xff;
+            position++;
+            String players = getString(records, position, PLAYERS_BYTES);
+            position += Short.BYTES + PLAYERS_BYTES;
+            int turn = records.getInt(position);
+            long mapFingerprint = records.getLong(position + Integer.BYTES);
+            return new Entry(slot, playerCount, players, turn, mapFingerprint, getSavedAt(i));
+        }
+
+        /**
+         * Read only the time a record was saved
+         * @param i The record's position in the index
+         * @return The time saved, in milliseconds since the epoch
+         */
+        long getSavedAt(int i) {
+            checkIndex(i);
+            return records.getLong(i * recordSize + SAVED_AT_OFFSET);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        private void checkIndex(int i) {
+            if (i < 0 || i >= count) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+            }
+        }
+    }
+
+    /**
+     * Put a string in a field of a fixed size, cut short on a character boundary if it does not fit
+     */
+    private static void putString(ByteBuffer buffer, String text, int maxBytes) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, maxBytes);
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xc0) == 0x80) {
+            length--; // bytes[length] continues a character, cut before the character starts
+        }
+        buffer.putShort((short) length);
+        buffer.put(bytes, 0, length);
+        buffer.position(buffer.position() + maxBytes - length);
+    }
+
+    private static String getString(ByteBuffer buffer, int position, int maxBytes) {
+        int length = Math.min(buffer.getShort(position) & 0xffff, maxBytes);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + Short.BYTES + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
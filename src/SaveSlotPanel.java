@@ -0,0 +1,57 @@
+import javax.swing.*;
+import java.awt.*;
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class creates a JPanel listing the save slots, most recently saved first, so the user can choose
+ * one to load. Rows are read from the save index as they are shown, so the list opens at once however many
+ * games were saved
+ */
+public class SaveSlotPanel extends JPanel {
+    private final JList<String> slots;
+    private final List<SaveCatalog.Entry> entries;
+
+    /**
+     * Constructor for SaveSlotPanel
+     * @param entries the save slots in the order to show them, see SaveCatalog.entries()
+     */
+    public SaveSlotPanel(List<SaveCatalog.Entry> entries) {
+        this.entries = entries;
+        DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
+        slots = new JList<>(new AbstractListModel<String>() {
+            @Override
+            public int getSize() {
+                return entries.size();
+            }
+
+            @Override
+            public String getElementAt(int index) {
+                SaveCatalog.Entry entry = entries.get(index);
+                return String.format("%s - %s - turn %d - %s", entry.getSlot(), entry.getPlayers(),
+                        entry.getTurn(), dateFormat.format(new Date(entry.getSavedAt())));
+            }
+        });
+        // A prototype row fixes the row size, which keeps the list from reading every row to size itself
+        slots.setPrototypeCellValue("autosave - Player 1, Player 2, Player 3 - turn 100 - 01/01/2000, 12:00 PM");
+        slots.setVisibleRowCount(12);
+        slots.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        if (!entries.isEmpty()) {
+            slots.setSelectedIndex(0);
+        }
+
+        setLayout(new BorderLayout());
+        add(new JLabel("Choose a saved game:"), BorderLayout.NORTH);
+        add(new JScrollPane(slots), BorderLayout.CENTER);
+    }
+
+    /**
+     * getting the save slot chosen by the user
+     * @return the slot's name, or null if none is selected
+     */
+    public String getSelectedSlot() {
+        int index = slots.getSelectedIndex();
+        return index < 0 ? null : entries.get(index).getSlot();
+    }
+}
@@ -1,4 +1,3 @@
-import java.io.Serializable;
 import java.util.*;
 
 /** the class Territory represents a territory in the risk game identifiable by a Name and ID that can be read.
@@ -7,18 +6,21 @@ import java.util.*;
  *
  * @author Jacob Schmidt
  */
-public class Territory implements Serializable {
+public class Territory {
     private Player owner; // owner of the country
     private int numArmies = 0; //amount of armies contained in the country
     private final String name; //name to identify country by
     private final String id; //id to identify country by
-    private final List<String> listOfAdjacents; //List of countries that belong to other countries adjacent to this one
+    private List<String> listOfAdjacents; //List of countries that belong to other countries adjacent to this one, null until read from the map if it was compiled
+    private Continent continent; //continent the country is on, null if it is not on a continent
+    private TerritoryGraph graph; //compiled map the country belongs to, null if it is not on a map
+    private int index = -1; //index of the country in the compiled map, -1 if it is not on a map
 
     /**
      * constructor for territory.
      * @param name longer string used to identify territories
      * @param id string to used identify territories
-     * @param listOfAdjacents The list of adjacent territory IDs
+     * @param listOfAdjacents The list of adjacent territory IDs, or null to read them from the compiled map it is put on
      */
     public Territory(String name, String id, List<String> listOfAdjacents) {
         this.name = name;
@@ -33,6 +35,9 @@ public class Territory implements Serializable {
      */
     public void addArmy(int numAdd) {
         numArmies += numAdd;
+        if (owner != null) {
+            owner.armiesChanged(numAdd);
+        }
     }
 
     /**
@@ -46,6 +51,9 @@ public class Territory implements Serializable {
             return false;
         }
         numArmies -= numRemove;
+        if (owner != null) {
+            owner.armiesChanged(-numRemove);
+        }
         return true;
     }
 
@@ -54,6 +62,9 @@ public class Territory implements Serializable {
      * @param newArmies The new amount of armies
      */
     public void setNumArmies(int newArmies) {
+        if (owner != null) {
+            owner.armiesChanged(newArmies - numArmies);
+        }
         this.numArmies = newArmies;
     }
 
@@ -65,6 +76,56 @@ public class Territory implements Serializable {
         return id;
     }
 
+    /**
+     * Get this territory's index in the compiled map
+     * @return The territory's index, or -1 if it is not part of a compiled map
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Attach this territory to a compiled map
+     * @param graph The compiled map the territory belongs to
+     * @param index The territory's index
+     */
+    public void setGraph(TerritoryGraph graph, int index) {
+        this.graph = graph;
+        this.index = index;
+    }
+
+    /**
+     * Get the continent this territory is on
+     * @return The territory's continent, or null if it is not on a continent
+     */
+    public Continent getContinent() {
+        return continent;
+    }
+
+    /**
+     * Set the continent this territory is on
+     * @param continent The territory's continent
+     */
+    public void setContinent(Continent continent) {
+        this.continent = continent;
+    }
+
+    /**
+     * Get the number of enemy territories next to this one
+     * @return The number of adjacent territories with a different owner, 0 if it is not on a map
+     */
+    public int getEnemyAdjacentCount() {
+        return (graph == null) ? 0 : graph.getDegree(index) - graph.getFriendlyAdjacent(index);
+    }
+
+    /**
+     * Get the number of friendly territories next to this one
+     * @return The number of adjacent territories with the same owner, 0 if it is not on a map
+     */
+    public int getFriendlyAdjacentCount() {
+        return (graph == null) ? 0 : graph.getFriendlyAdjacent(index);
+    }
+
     /**
      * a method to read the integer numArmies
      * @return an integer representing numArmies
@@ -74,11 +135,28 @@ public class Territory implements Serializable {
     }
 
     /**
-     * a method used to set owner to an existing player
+     * a method used to set owner to an existing player. Keeps the frontiers and army totals of the affected
+     * players and the continent's owner counts up to date
      * @param owner the player that will be set to owner
      */
     public void setPlayer (Player owner) {
+        Player oldOwner = this.owner;
         this.owner = owner;
+        if (oldOwner == owner) {
+            return;
+        }
+        if (oldOwner != null) {
+            oldOwner.armiesChanged(-numArmies);
+        }
+        if (owner != null) {
+            owner.armiesChanged(numArmies);
+        }
+        if (graph != null) {
+            graph.ownerChanged(this, oldOwner);
+        }
+        if (continent != null) {
+            continent.ownerChanged(oldOwner, owner);
+        }
     }
 
     /**
@@ -102,44 +180,52 @@ public class Territory implements Serializable {
      * @return a string representing all adjacent territory's IDs
      */
     public List<String> getAdjacentList() {
+        if (listOfAdjacents == null && graph != null) {
+            // Territories read from a MapCache only know their neighbours by index
+            List<String> ids = new ArrayList<>(graph.getDegree(index));
+            for (int edge = graph.getAdjacentStart(index); edge < graph.getAdjacentEnd(index); edge++) {
+                ids.add(graph.getTerritory(graph.getAdjacent(edge)).getId());
+            }
+            listOfAdjacents = ids;
+        }
         return listOfAdjacents;
     }
 
     /**
      * get a list of friendly adjacent territories
-     * @param gameState the game that is used to search for territories by id string from listTerritories
-     * @return a list containing friendly adjacent territories
+     * @return a list containing friendly adjacent territories, in the order of the compiled map's edges
      */
-    public List<Territory> getAdjacentFriendly(Game gameState) {
-        return getAdjacentFriendlyOrEnemy(gameState, true);
+    public List<Territory> getAdjacentFriendly() {
+        return getAdjacentFriendlyOrEnemy(true);
     }
 
     /**
      * get a list of enemy adjacent territories
-     * @param gameState the game that is used to search for territories by id string from listTerritories
-     * @return a list containing enemy adjacent territories
+     * @return a list containing enemy adjacent territories, in the order of the compiled map's edges
      */
-    public List<Territory> getAdjacentEnemy(Game gameState) {
-        return getAdjacentFriendlyOrEnemy(gameState, false);
+    public List<Territory> getAdjacentEnemy() {
+        return getAdjacentFriendlyOrEnemy(false);
     }
 
-    private List<Territory> getAdjacentFriendlyOrEnemy(Game gameState, boolean getFriendly) {
-        ArrayList<Territory> output = new ArrayList<>();
-        for (String toCheck : listOfAdjacents){
-            gameState.findTerritory(toCheck).ifPresent(territory -> {
-                if ((territory.getOwner() == owner) == getFriendly) {
-                    output.add(territory);
-                }
-            });
+    private List<Territory> getAdjacentFriendlyOrEnemy(boolean getFriendly) {
+        if (graph == null) {
+            return new ArrayList<>(0);
+        }
+        int friendly = graph.getFriendlyAdjacent(index);
+        List<Territory> output = new ArrayList<>(getFriendly ? friendly : graph.getDegree(index) - friendly);
+        for (int edge = graph.getAdjacentStart(index); edge < graph.getAdjacentEnd(index); edge++) {
+            Territory territory = graph.getTerritory(graph.getAdjacent(edge));
+            if ((territory.getOwner() == owner) == getFriendly) {
+                output.add(territory);
+            }
         }
-        output.sort(Comparator.comparing(Territory::getId));
         return output;
     }
 
 
     @Override
     public String toString() {
-        return name + " [" + id + "] | Owner: " + owner.getName() + " | Armies: " + numArmies + " | Adjacent Territories: " +listOfAdjacents;
+        return name + " [" + id + "] | Owner: " + owner.getName() + " | Armies: " + numArmies + " | Adjacent Territories: " +getAdjacentList();
     }
 
     @Override
@@ -152,6 +238,6 @@ public class Territory implements Serializable {
                 && t.name.equals(this.name)
                 && t.numArmies == this.numArmies
                 && t.owner == this.owner
-                && t.listOfAdjacents.containsAll(this.listOfAdjacents);
+                && t.getAdjacentList().containsAll(this.getAdjacentList());
     }
 }
\ No newline at end of file
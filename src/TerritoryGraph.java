@@ -0,0 +1,256 @@
+import java.util.*;
+
+/**
+ * A compiled, integer-indexed view of the map. Every territory is given a dense index once the map has been
+ * imported, and adjacency is stored in compressed sparse row form so neighbours can be walked without any
+ * String lookups.
+ *
+ * The neighbours of the territory at index i are getAdjacent(e) for every e in
+ * [getAdjacentStart(i), getAdjacentEnd(i)).
+ */
+public class TerritoryGraph {
+    private final Territory[] territories;
+    private final int[] adjacentStart; // offset of each territory's first edge, with one extra entry at the end
+    private final int[] adjacent; // concatenated neighbour indices of every territory
+    private final Map<String, Territory> territoriesById;
+    private final int[] friendlyAdjacent; // number of neighbours sharing each territory's owner
+    private final long fingerprint;
+
+    /**
+     * Constructor for TerritoryGraph. Assigns an index to every territory (continents in ID order, then
+     * territories in the order they appear on their continent) and builds the adjacency arrays.
+     * Adjacent IDs that do not correspond to a territory on the map are ignored.
+     * @param continents The map of continents to compile
+     */
+    public TerritoryGraph(Map<String, Continent> continents) {
+        this(sortTerritories(continents));
+    }
+
+    private TerritoryGraph(Territory[] territories) {
+        this(territories, compileAdjacency(territories));
+    }
+
+    private TerritoryGraph(Territory[] territories, int[][] adjacency) {
+        this(territories, adjacency[0], adjacency[1]);
+    }
+
+    /**
+     * Constructor for TerritoryGraph from a map that was already compiled, e.g. read back from a MapCache.
+     * The arrays are used as they are, and the territories' adjacent IDs are not read
+     * @param territories The territories in index order, on their continents
+     * @param adjacentStart The offset of each territory's first edge, with one extra entry at the end
+     * @param adjacent The concatenated neighbour indices of every territory
+     */
+    public TerritoryGraph(Territory[] territories, int[] adjacentStart, int[] adjacent) {
+        this.territories = territories;
+        this.adjacentStart = adjacentStart;
+        this.adjacent = adjacent;
+        territoriesById = new HashMap<>(territories.length * 2);
+        for (int i = 0; i < territories.length; i++) {
+            territories[i].setGraph(this, i);
+            territoriesById.put(territories[i].getId(), territories[i]);
+        }
+        friendlyAdjacent = new int[territories.length];
+        fingerprint = computeFingerprint();
+    }
+
+    /**
+     * Order the territories of every continent, continents in ID order
+     */
+    private static Territory[] sortTerritories(Map<String, Continent> continents) {
+        List<String> continentIds = new ArrayList<>(continents.keySet());
+        Collections.sort(continentIds);
+
+        List<Territory> all = new ArrayList<>();
+        for (String id : continentIds) {
+            all.addAll(continents.get(id).getTerritoryList());
+        }
+        return all.toArray(new Territory[0]);
+    }
+
+    /**
+     * Build the adjacency arrays from the territories' adjacent IDs
+     * @return The first edge of each territory, and the neighbour of each edge
+     */
+    private static int[][] compileAdjacency(Territory[] territories) {
+        Map<String, Integer> indices = new HashMap<>(territories.length * 2);
+        for (int i = 0; i < territories.length; i++) {
+            indices.put(territories[i].getId(), i);
+        }
+
+        int[] adjacentStart = new int[territories.length + 1];
+        int[] edges = new int[16];
+        int edgeCount = 0;
+        for (int i = 0; i < territories.length; i++) {
+            adjacentStart[i] = edgeCount;
+            for (String id : territories[i].getAdjacentList()) {
+                Integer neighbour = indices.get(id);
+                if (neighbour == null) {
+                    continue;
+                }
+                if (edgeCount == edges.length) {
+                    edges = Arrays.copyOf(edges, edges.length * 2);
+                }
+                edges[edgeCount++] = neighbour;
+            }
+        }
+        adjacentStart[territories.length] = edgeCount;
+        return new int[][]{adjacentStart, Arrays.copyOf(edges, edgeCount)};
+    }
+
+    /**
+     * Get a hash of the map's territories, continents and adjacency, e.g. to check a saved game was played on
+     * the same map. Two maps that compile to the same indices, IDs, continents and edges have the same fingerprint
+     * @return The fingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 64-bit FNV-1a over every territory's ID and continent in index order, then the adjacency arrays
+     */
+    private long computeFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        Continent continent = null;
+        for (Territory territory : territories) {
+            if (territory.getContinent() != continent) {
+                continent = territory.getContinent();
+                if (continent != null) {
+                    hash = fnv(hash, continent.getName());
+                    hash = fnv(hash, continent.BONUS_ARMIES);
+                }
+            }
+            hash = fnv(hash, territory.getId());
+        }
+        for (int start : adjacentStart) {
+            hash = fnv(hash, start);
+        }
+        for (int neighbour : adjacent) {
+            hash = fnv(hash, neighbour);
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, String text) {
+        hash = fnv(hash, text.length());
+        for (int i = 0; i < text.length(); i++) {
+            hash = fnv(hash, text.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, int value) {
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Get the number of territories on the map
+     * @return The number of territories
+     */
+    public int size() {
+        return territories.length;
+    }
+
+    /**
+     * Get the territory with the given index
+     * @param index The territory's index
+     * @return The territory at that index
+     */
+    public Territory getTerritory(int index) {
+        return territories[index];
+    }
+
+    /**
+     * Get the territory with the given ID
+     * @param id The territory's full ID (continent ID followed by its number)
+     * @return The territory with that ID, or null if there is none on the map
+     */
+    public Territory getTerritory(String id) {
+        return territoriesById.get(id);
+    }
+
+    /**
+     * Get the first edge of a territory
+     * @param index The territory's index
+     * @return The offset of the territory's first edge
+     */
+    public int getAdjacentStart(int index) {
+        return adjacentStart[index];
+    }
+
+    /**
+     * Get the end (exclusive) of a territory's edges
+     * @param index The territory's index
+     * @return The offset just past the territory's last edge
+     */
+    public int getAdjacentEnd(int index) {
+        return adjacentStart[index + 1];
+    }
+
+    /**
+     * Get the neighbour at the other end of an edge
+     * @param edge The edge offset
+     * @return The index of the adjacent territory
+     */
+    public int getAdjacent(int edge) {
+        return adjacent[edge];
+    }
+
+    /**
+     * Get the number of territories adjacent to a territory
+     * @param index The territory's index
+     * @return The territory's degree
+     */
+    public int getDegree(int index) {
+        return adjacentStart[index + 1] - adjacentStart[index];
+    }
+
+    /**
+     * Get the number of territories adjacent to a territory that have the same owner
+     * @param index The territory's index
+     * @return The number of friendly neighbours
+     */
+    public int getFriendlyAdjacent(int index) {
+        return friendlyAdjacent[index];
+    }
+
+    /**
+     * Updates the friendly neighbour counts and the frontiers of every affected player after a territory
+     * has changed owner. Only the territory and its neighbours are visited.
+     * @param territory The territory whose owner changed
+     * @param oldOwner The territory's previous owner, may be null
+     */
+    public void ownerChanged(Territory territory, Player oldOwner) {
+        int index = territory.getIndex();
+        Player newOwner = territory.getOwner();
+        int friendly = 0;
+        for (int edge = adjacentStart[index]; edge < adjacentStart[index + 1]; edge++) {
+            int neighbourIndex = adjacent[edge];
+            Player neighbourOwner = territories[neighbourIndex].getOwner();
+            if (neighbourOwner == null) {
+                continue;
+            }
+            if (neighbourOwner == oldOwner) {
+                friendlyAdjacent[neighbourIndex]--;
+                neighbourOwner.updateFrontier(territories[neighbourIndex]);
+            } else if (neighbourOwner == newOwner) {
+                friendlyAdjacent[neighbourIndex]++;
+                neighbourOwner.updateFrontier(territories[neighbourIndex]);
+                friendly++;
+            }
+        }
+        friendlyAdjacent[index] = friendly;
+
+        if (oldOwner != null) {
+            oldOwner.removeFrontier(territory);
+        }
+        if (newOwner != null) {
+            newOwner.updateFrontier(territory);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+import javax.management.JMException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Plays many AI-only games on one map in parallel and merges their results, to check the balance of a map
+ * without clicking through the GUI. Every game gets its own Game instance and its own random number generator
+ * split from the tournament's seed, and every worker thread accumulates its own results which are only merged
+ * once all games are done. The same seed gives the same results on any number of threads.
+ *
+ * Usage: java [-Drisk.metrics=true] Tournament [map file] [games] [players] [threads] [seed]
+ * With risk.metrics set, every game is also recorded in GameMetrics that can be watched through JMX while the
+ * tournament runs.
+ */
+public class Tournament {
+    /**
+     * The number of turns after which a game is stopped and counted as a draw
+     */
+    public static final int DEFAULT_TURN_LIMIT = 5000;
+
+    private final byte[] map;
+    private final int players;
+    private final int turnLimit;
+    private GameMetrics metrics; // null if games are not recorded
+    private MapCache mapCache; // null if every game parses the map
+
+    /**
+     * Constructor for class Tournament
+     * @param map The contents of the custom map XML file to play on
+     * @param players The number of AI players (seats) in every game
+     * @param turnLimit The number of turns after which a game is counted as a draw
+     */
+    public Tournament(byte[] map, int players, int turnLimit) {
+        this.map = map;
+        this.players = players;
+        this.turnLimit = turnLimit;
+    }
+
+    /**
+     * Record every game played from now on in metrics, e.g. to watch a long tournament through JMX
+     * @param metrics The metrics to record the games in, or null to stop recording
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Import the map of every game from a cache, so it is only parsed and validated once
+     * @param mapCache The cache, or null to parse the map for every game
+     */
+    public void setMapCache(MapCache mapCache) {
+        this.mapCache = mapCache;
+    }
+
+    /**
+     * Plays a number of games spread over a number of threads
+     * @param games The number of games to play
+     * @param threads The number of threads to play them on
+     * @param seed The seed every game's random number generator is split from
+     * @return The merged results of all games
+     * @throws InterruptedException If interrupted while waiting for the games to finish
+     * @throws ExecutionException If a game could not be played (e.g. the map is invalid)
+     */
+    public Result run(int games, int threads, long seed) throws InterruptedException, ExecutionException {
+        // Split every game's stream up front so the results do not depend on how games are spread over threads
+        GameRandom[] streams = new GameRandom[games];
+        GameRandom seeder = new GameRandom(seed);
+        for (int i = 0; i < games; i++) {
+            streams[i] = seeder.split();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                futures.add(executor.submit(() -> {
+                    Result result = new Result(players);
+                    for (int i = first; i < games; i += threads) {
+                        playGame(streams[i], result);
+                    }
+                    return result;
+                }));
+            }
+
+            Result total = new Result(players);
+            for (Future<Result> future : futures) {
+                total.merge(future.get());
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays one AI-only game to completion (or to the turn limit) and records it
+     * @param random The game's random number generator
+     * @param result The results to record the game in
+     * @throws Exception If the map cannot be imported
+     */
+    private void playGame(GameRandom random, Result result) throws Exception {
+        Game game = new Game(random);
+        game.setMapCache(mapCache);
+        game.importCustomMap(new ByteArrayInputStream(map));
+
+        Map<String, Boolean> seats = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= players; i++) {
+            names.add("Seat " + i);
+            seats.put("Seat " + i, true);
+        }
+        game.initialize(seats);
+
+        // Without views the game builds no events or log entries, so only recorded games register one
+        if (metrics != null) {
+            game.addGameView(new MetricsView(game, metrics));
+        }
+        Map<String, Integer> firstCaptures = new HashMap<>();
+        recordCaptures(game, game.getTurn(), firstCaptures);
+        do {
+            // The game stops after every turn so the continents can be checked
+            int turn = game.getTurn();
+            game.setTurnLimit(turn);
+            game.AITurn();
+            recordCaptures(game, turn, firstCaptures);
+        } while (game.getActivePlayers().size() > 1 && game.getTurn() <= turnLimit);
+
+        if (game.getActivePlayers().size() == 1) {
+            result.wins[names.indexOf(game.getActivePlayers().get(0).getName())]++;
+        } else {
+            result.draws++;
+        }
+        result.turns.merge(game.getTurn(), 1L, Long::sum);
+        for (Map.Entry<String, Integer> capture : firstCaptures.entrySet()) {
+            result.captureCounts.merge(capture.getKey(), 1L, Long::sum);
+            result.captureTurnTotals.merge(capture.getKey(), (long) capture.getValue(), Long::sum);
+        }
+    }
+
+    /**
+     * Records a turn for each continent that is held entirely by one player for the first time
+     * @param game The game
+     * @param turn The turn just played, or the first turn for the continents held when the game starts
+     * @param firstCaptures The first turn each continent was held, by continent ID
+     */
+    private static void recordCaptures(Game game, int turn, Map<String, Integer> firstCaptures) {
+        for (Map.Entry<String, Continent> continent : game.getContinents().entrySet()) {
+            if (!firstCaptures.containsKey(continent.getKey()) && continent.getValue().getConqueror().isPresent()) {
+                firstCaptures.put(continent.getKey(), turn);
+            }
+        }
+    }
+
+    /**
+     * The merged results of a number of games
+     */
+    public static class Result {
+        private final long[] wins;
+        private long draws = 0;
+        private final TreeMap<Integer, Long> turns = new TreeMap<>(); // game length -> number of games
+        private final TreeMap<String, Long> captureCounts = new TreeMap<>(); // continent -> games it was captured in
+        private final TreeMap<String, Long> captureTurnTotals = new TreeMap<>(); // continent -> sum of first capture turns
+
+        /**
+         * Constructor for class Result
+         * @param players The number of seats
+         */
+        public Result(int players) {
+            wins = new long[players];
+        }
+
+        /**
+         * Adds another set of results to this one
+         * @param other The results to add
+         */
+        public void merge(Result other) {
+            for (int i = 0; i < wins.length; i++) {
+                wins[i] += other.wins[i];
+            }
+            draws += other.draws;
+            other.turns.forEach((turn, count) -> turns.merge(turn, count, Long::sum));
+            other.captureCounts.forEach((id, count) -> captureCounts.merge(id, count, Long::sum));
+            other.captureTurnTotals.forEach((id, total) -> captureTurnTotals.merge(id, total, Long::sum));
+        }
+
+        /**
+         * Get the number of games won by a seat
+         * @param seat The seat, starting from 0 for the player who moves first
+         * @return The number of wins
+         */
+        public long getWins(int seat) {
+            return wins[seat];
+        }
+
+        /**
+         * Get the number of games that reached the turn limit without a winner
+         * @return The number of draws
+         */
+        public long getDraws() {
+            return draws;
+        }
+
+        /**
+         * Get the total number of games played
+         * @return The number of games
+         */
+        public long getGames() {
+            return Arrays.stream(wins).sum() + draws;
+        }
+
+        /**
+         * Get the distribution of game lengths
+         * @return A map of the number of turns a game lasted to the number of games that lasted that long
+         */
+        public SortedMap<Integer, Long> getTurnDistribution() {
+            return Collections.unmodifiableSortedMap(turns);
+        }
+
+        /**
+         * Get the turn count below which a given fraction of games ended
+         * @param fraction The fraction of games, between 0 and 1
+         * @return The turn count at that percentile
+         */
+        public int getTurnPercentile(double fraction) {
+            long target = (long) Math.ceil(fraction * getGames());
+            long seen = 0;
+            for (Map.Entry<Integer, Long> entry : turns.entrySet()) {
+                seen += entry.getValue();
+                if (seen >= Math.max(1, target)) {
+                    return entry.getKey();
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Get the number of games in which a continent was held entirely by one player at some point
+         * @param continentId The continent's ID
+         * @return The number of games
+         */
+        public long getCaptureCount(String continentId) {
+            return captureCounts.getOrDefault(continentId, 0L);
+        }
+
+        /**
+         * Get the average turn on which a continent was first held entirely by one player
+         * @param continentId The continent's ID
+         * @return The average turn of first capture, or NaN if it was never captured
+         */
+        public double getAverageCaptureTurn(String continentId) {
+            long count = getCaptureCount(continentId);
+            return count == 0 ? Double.NaN : (double) captureTurnTotals.get(continentId) / count;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder output = new StringBuilder();
+            long games = getGames();
+            output.append("Games: ").append(games).append('\n');
+            for (int i = 0; i < wins.length; i++) {
+                output.append(String.format("Seat %d wins: %d (%.1f%%)%n", i + 1, wins[i], 100.0 * wins[i] / games));
+            }
+            output.append("Draws: ").append(draws).append('\n');
+            output.append(String.format("Turns: min %d, median %d, p90 %d, max %d%n",
+                    turns.isEmpty() ? 0 : turns.firstKey(), getTurnPercentile(0.5), getTurnPercentile(0.9),
+                    turns.isEmpty() ? 0 : turns.lastKey()));
+            for (String id : captureCounts.keySet()) {
+                output.append(String.format("Continent %s captured in %d games, first on turn %.1f on average%n",
+                        id, getCaptureCount(id), getAverageCaptureTurn(id)));
+            }
+            return output.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException, JMException {
+        String mapFile = args.length > 0 ? args[0] : "DefaultMap.xml";
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int players = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        Tournament tournament = new Tournament(Files.readAllBytes(Paths.get(mapFile)), players, DEFAULT_TURN_LIMIT);
+        tournament.setMapCache(new MapCache(Paths.get(MapCache.DEFAULT_DIRECTORY)));
+        if (Boolean.getBoolean("risk.metrics")) {
+            GameMetrics metrics = new GameMetrics();
+            metrics.register("Tournament");
+            tournament.setMetrics(metrics);
+        }
+        long start = System.nanoTime();
+        Result result = tournament.run(games, threads, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(result);
+        System.out.printf("Played %d games on %d threads in %.2f s (%.0f games/s), seed %d%n",
+                games, threads, seconds, games / seconds, seed);
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.*;
+
+/**
+ * The changes a view has been sent but has not drawn yet. Batches of events are added as they arrive, keeping only
+ * the latest state of every territory, player and label, so however many batches arrive between two frames the
+ * view draws each changed thing once. Not thread safe, the view guards it with a lock and swaps in a new instance
+ * when it draws.
+ */
+public class ViewChanges {
+    private final Map<Integer, GameEvent> territories = new LinkedHashMap<>(); // latest event by territory index
+    private final Map<String, Leaderboard.Row> rows = new LinkedHashMap<>(); // latest stats by player name
+    private final Set<String> eliminated = new LinkedHashSet<>();
+    private String currentPlayer; // player whose turn started, null if no turn started
+    private int turn;
+    private Game.Status status; // latest phase, null if the phase did not change
+    private boolean humanTurn;
+    private String winner;
+
+    /**
+     * Add a batch of events and the state of the game read when they were sent
+     * @param events The merged events of the batch
+     * @param changedRows The stats of the players whose territories or armies changed
+     * @param turn The game's turn
+     * @param humanTurn true if it is a human player's turn
+     * @param winner The name of the player who won the game, or null if no one has won yet
+     */
+    public void add(List<GameEvent> events, List<Leaderboard.Row> changedRows, int turn, boolean humanTurn, String winner) {
+        for (GameEvent event : events) {
+            switch (event.getType()) {
+                case ARMIES_CHANGED:
+                case OWNER_CHANGED:
+                    territories.put(event.getTerritory().getIndex(), event);
+                    break;
+
+                case PLAYER_ELIMINATED:
+                    eliminated.add(event.getPlayer().getName());
+                    rows.remove(event.getPlayer().getName());
+                    break;
+
+                case TURN_CHANGED:
+                    currentPlayer = event.getPlayer().getName();
+                    break;
+
+                case PHASE_CHANGED:
+                    status = event.getStatus();
+                    break;
+            }
+        }
+        for (Leaderboard.Row row : changedRows) {
+            if (!eliminated.contains(row.getName())) {
+                rows.put(row.getName(), row);
+            }
+        }
+        this.turn = turn;
+        this.humanTurn = humanTurn;
+        if (winner != null) {
+            this.winner = winner;
+        }
+    }
+
+    /**
+     * Checks if there is anything to draw
+     * @return true if nothing changed, false otherwise
+     */
+    public boolean isEmpty() {
+        return territories.isEmpty() && rows.isEmpty() && eliminated.isEmpty() && currentPlayer == null && status == null;
+    }
+
+    /**
+     * Get the latest change of every territory that changed
+     * @return The events, at most one per territory
+     */
+    public Collection<GameEvent> getTerritories() {
+        return territories.values();
+    }
+
+    /**
+     * Get the latest stats of every player whose territories or armies changed and who is still playing
+     * @return The rows
+     */
+    public Collection<Leaderboard.Row> getRows() {
+        return rows.values();
+    }
+
+    /**
+     * Get the players who were eliminated
+     * @return Their names
+     */
+    public Set<String> getEliminated() {
+        return eliminated;
+    }
+
+    /**
+     * Get the player whose turn started last
+     * @return The player's name, or null if no turn started
+     */
+    public String getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Get the game's turn when the last batch was sent
+     * @return The turn
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Get the latest phase of the game
+     * @return The status, or null if the phase did not change
+     */
+    public Game.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks if it was a human player's turn when the last batch was sent
+     * @return true if it is a human player's turn, false otherwise
+     */
+    public boolean isHumanTurn() {
+        return humanTurn;
+    }
+
+    /**
+     * Get the player who won the game
+     * @return The winner's name, or null if no one has won yet
+     */
+    public String getWinner() {
+        return winner;
+    }
+}
@@ -0,0 +1,192 @@
+import org.junit.*;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ActionLogTest {
+    JTextArea textArea;
+    ActionLog log;
+    Path journal;
+    Path saved;
+
+    @Before
+    public void SetUp() throws IOException {
+        textArea = new JTextArea();
+        journal = Files.createTempFile("ActionLogTest", ".journal");
+        saved = Files.createTempFile("ActionLogTest", ".sav");
+        log = new ActionLog(textArea, 10, journal);
+    }
+
+    @After
+    public void TearDown() throws IOException {
+        log.close();
+        Files.deleteIfExists(journal);
+        Files.deleteIfExists(saved);
+    }
+
+    private void run(IORunnable action) throws InvocationTargetException, InterruptedException {
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private interface IORunnable {
+        void run() throws IOException;
+    }
+
+    @Test
+    public void testTextAreaKeepsOnlyRecentEntries() throws InvocationTargetException, InterruptedException {
+        for (int i = 0; i < 25; i++) {
+            log.append("line " + i);
+        }
+        SwingUtilities.invokeAndWait(() -> log.flush());
+        for (int i = 25; i < 30; i++) {
+            log.append("line " + i);
+        }
+        SwingUtilities.invokeAndWait(() -> log.flush());
+
+        List<String> entries = log.getEntries();
+        assertEquals(10, entries.size());
+        assertEquals("line 20", entries.get(0));
+        assertEquals("line 29", entries.get(9));
+        assertTrue(textArea.getText().startsWith("line 20\n"));
+        assertTrue(textArea.getText().endsWith("line 29\n"));
+        assertEquals(10, textArea.getLineCount() - 1);
+    }
+
+    @Test
+    public void testJournalKeepsFullHistory() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            log.append("line " + i);
+        }
+        run(() -> log.save(saved));
+        List<String> lines = Files.readAllLines(journal);
+        assertEquals(30, lines.size());
+        assertEquals("line 0", lines.get(0));
+
+        // Lines after the save are not part of the loaded log, but stay in the journal
+        log.append("not saved");
+        run(() -> log.flush());
+        run(() -> log.load(saved));
+        assertEquals(10, log.getEntries().size());
+        assertEquals("line 20", log.getEntries().get(0));
+        assertEquals("line 29", log.getEntries().get(9));
+        assertTrue(textArea.getText().startsWith("line 20\n"));
+        assertEquals(31, Files.readAllLines(journal).size());
+
+        log.append("line 30");
+        run(() -> log.flush());
+        assertEquals("line 30", Files.readAllLines(journal).get(31));
+        run(() -> log.save(saved));
+        run(() -> log.load(saved));
+        assertEquals("line 21", log.getEntries().get(0));
+        assertEquals("line 30", log.getEntries().get(9));
+    }
+
+    @Test
+    public void testLoadSlotsInTurn() throws Exception {
+        Path second = Files.createTempFile("ActionLogTest", ".sav");
+        try {
+            for (int i = 0; i < 8; i++) {
+                log.append("a" + i);
+            }
+            run(() -> log.save(saved));
+            for (int i = 0; i < 4; i++) {
+                log.append("b" + i);
+            }
+            run(() -> log.save(second));
+
+            run(() -> log.load(saved));
+            assertEquals("a7", log.getEntries().get(7));
+            log.append("after a");
+            run(() -> log.save(saved));
+
+            run(() -> log.load(second));
+            List<String> entries = log.getEntries();
+            assertEquals(10, entries.size());
+            assertEquals("a2", entries.get(0));
+            assertEquals("b3", entries.get(9));
+
+            // The first save's log now spans two segments of the journal
+            run(() -> log.load(saved));
+            assertEquals(Arrays.asList("a0", "a1", "a2", "a3", "a4", "a5", "a6", "a7", "after a"), log.getEntries());
+            assertEquals("a0\na1\na2\na3\na4\na5\na6\na7\nafter a\n", textArea.getText());
+            for (int i = 0; i < 3; i++) {
+                log.append("c" + i);
+            }
+            run(() -> log.save(saved));
+            run(() -> log.load(saved));
+            assertEquals("a2", log.getEntries().get(0));
+            assertEquals("c2", log.getEntries().get(9));
+        } finally {
+            Files.deleteIfExists(second);
+        }
+    }
+
+    @Test
+    public void testCompactDropsUnsavedEntries() throws Exception {
+        Path second = Files.createTempFile("ActionLogTest", ".sav");
+        try {
+            for (int i = 0; i < 30; i++) {
+                log.append("unsaved game " + i);
+            }
+            run(() -> log.close());
+
+            log = new ActionLog(textArea, 10, journal);
+            for (int i = 0; i < 5; i++) {
+                log.append("a" + i);
+            }
+            run(() -> log.save(saved));
+            for (int i = 0; i < 3; i++) {
+                log.append("b" + i);
+            }
+            run(() -> log.save(second));
+            log.append("not saved");
+            run(() -> log.close());
+
+            ActionLog.compact(journal, Arrays.asList(saved, second));
+            assertEquals(Arrays.asList("a0", "a1", "a2", "a3", "a4", "b0", "b1", "b2"), Files.readAllLines(journal));
+            assertFalse(Files.exists(journal.resolveSibling(journal.getFileName() + ".compact")));
+            assertFalse(Files.exists(journal.resolveSibling(journal.getFileName() + ".compacted")));
+
+            // Little is left to drop, so the journal is kept as it is
+            long size = Files.size(journal);
+            ActionLog.compact(journal, Arrays.asList(saved, second));
+            assertEquals(size, Files.size(journal));
+
+            log = new ActionLog(textArea, 10, journal);
+            run(() -> log.load(saved));
+            assertEquals(Arrays.asList("a0", "a1", "a2", "a3", "a4"), log.getEntries());
+            run(() -> log.load(second));
+            assertEquals(Arrays.asList("a0", "a1", "a2", "a3", "a4", "b0", "b1", "b2"), log.getEntries());
+        } finally {
+            Files.deleteIfExists(second);
+        }
+    }
+
+    @Test
+    public void testLoadFromNewSession() throws Exception {
+        log.append("first\n");
+        log.append("second");
+        run(() -> log.save(saved));
+        run(() -> log.close());
+
+        // A new session appends after the saved game, which can still be loaded
+        log = new ActionLog(textArea, 10, journal);
+        log.append("other game");
+        run(() -> log.load(saved));
+        assertEquals(Arrays.asList("first", "", "second"), log.getEntries());
+        assertEquals("first\n\nsecond\n", textArea.getText());
+    }
+}
@@ -0,0 +1,103 @@
+import org.junit.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BattleOddsTest {
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Test a 2 vs 1 battle, which is decided by a single 1 vs 1 roll
+     */
+    @Test
+    public void testSingleRoll() {
+        BattleOdds odds = BattleOdds.of(2, 1);
+        assertEquals(15.0 / 36, odds.getWinProbability(), DELTA);
+        assertEquals(15.0 / 36 * 2 + 21.0 / 36, odds.getExpectedAttackerSurvivors(), DELTA);
+        assertEquals(21.0 / 36, odds.getExpectedDefenderSurvivors(), DELTA);
+    }
+
+    /**
+     * Test a 3 vs 1 battle, a 2 vs 1 roll followed by a 1 vs 1 roll if the attacker loses the first
+     */
+    @Test
+    public void testTwoRounds() {
+        double firstRound = 125.0 / 216;
+        assertEquals(firstRound + (1 - firstRound) * 15.0 / 36, BattleOdds.of(3, 1).getWinProbability(), DELTA);
+    }
+
+    /**
+     * Test battles that cannot be fought or are already decided
+     */
+    @Test
+    public void testDecidedBattles() {
+        assertEquals(0, BattleOdds.of(1, 5).getWinProbability(), DELTA);
+        assertEquals(5, BattleOdds.of(1, 5).getExpectedDefenderSurvivors(), DELTA);
+        assertEquals(1, BattleOdds.of(4, 0).getWinProbability(), DELTA);
+    }
+
+    /**
+     * Test that the odds match a simulation of the game's own dice
+     */
+    @Test
+    public void testMatchesSimulation() {
+        Game game = new Game(new GameRandom(5));
+        Map<String, Boolean> players = new HashMap<>();
+        players.put("a", false);
+        players.put("b", false);
+        game.initialize(players);
+        Territory attacking = game.getCurrentPlayer().getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+
+        int battles = 20000;
+        int wins = 0;
+        for (int i = 0; i < battles; i++) {
+            attacking.setNumArmies(8);
+            defending.setNumArmies(6);
+            boolean conquered = false;
+            while (!conquered && attacking.getNumArmies() > 1) {
+                conquered = game.attack(attacking, Math.min(3, attacking.getNumArmies() - 1), defending, Math.min(2, defending.getNumArmies()));
+            }
+            if (conquered) wins++;
+        }
+        assertEquals(BattleOdds.of(8, 6).getWinProbability(), (double) wins / battles, 0.02);
+    }
+
+    /**
+     * Test that more attacking armies never lower the odds and that larger tables give the same results
+     */
+    @Test
+    public void testMonotonicAndStable() {
+        double small = BattleOdds.winProbability(10, 10);
+        for (int attackers = 2; attackers < 60; attackers++) {
+            assertTrue(BattleOdds.winProbability(attackers + 1, 10) >= BattleOdds.winProbability(attackers, 10));
+        }
+        BattleOdds.of(500, 300);
+        assertEquals(small, BattleOdds.winProbability(10, 10), DELTA);
+    }
+
+    /**
+     * Test that battles too large to memoize are approximated, agreeing with the table where the two meet
+     */
+    @Test
+    public void testLargeArmies() {
+        int edge = BattleOdds.MAX_ARMIES - 1;
+        for (int defenders : new int[]{150, 180, 190, edge}) {
+            BattleOdds exact = BattleOdds.of(edge, defenders);
+            BattleOdds approximate = BattleOdds.of(edge + 1, defenders);
+            assertEquals(exact.getWinProbability(), approximate.getWinProbability(), 0.02);
+            assertEquals(exact.getExpectedAttackerSurvivors(), approximate.getExpectedAttackerSurvivors(), 2);
+            assertEquals(exact.getExpectedDefenderSurvivors(), approximate.getExpectedDefenderSurvivors(), 2);
+        }
+
+        BattleOdds huge = BattleOdds.of(5000, 3000);
+        assertEquals(1, huge.getWinProbability(), 1e-6);
+        assertEquals(5000 - 3000 * 0.921 / 1.079, huge.getExpectedAttackerSurvivors(), 50);
+        assertEquals(0, BattleOdds.of(3000, 5000).getWinProbability(), 1e-6);
+        assertEquals(0.5, BattleOdds.winProbability(300, 350), 0.05);
+        assertEquals(1, BattleOdds.of(100000, 1).getWinProbability(), 1e-6);
+        assertEquals(0, BattleOdds.of(1, 100000).getWinProbability(), DELTA);
+    }
+}
@@ -4,7 +4,13 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -217,13 +223,12 @@ public class GameTest {
      * Test save and load features for GameModel
      *
      * @throws IOException if the GameModelfile is invalid
-     * @throws ClassNotFoundException if adding objects from GameModelfile is invalid
      * @throws FileNotFoundException if game file doesnt exist
      *
      * @author Robell Gabriel
      */
     @Test
-    public void saveEqualsLoadGame() throws IOException, ClassNotFoundException, FileNotFoundException {
+    public void saveEqualsLoadGame() throws IOException, FileNotFoundException {
         Game gSave = new Game();
         Game gLoad = new Game();
 
@@ -275,4 +280,710 @@ public class GameTest {
         Game game = new Game();
         game.importCustomMap("tests/invalidCustomMap.xml");
     }
+
+    /**
+     * Test that the compiled territory graph matches the adjacency lists of the imported map
+     */
+    @Test
+    public void testTerritoryGraph() {
+        TerritoryGraph graph = game.getGraph();
+        assertEquals(42, graph.size());
+
+        for (int i = 0; i < graph.size(); i++) {
+            Territory territory = graph.getTerritory(i);
+            assertEquals(i, territory.getIndex());
+            assertEquals(territory.getAdjacentList().size(), graph.getDegree(i));
+            for (int edge = graph.getAdjacentStart(i); edge < graph.getAdjacentEnd(i); edge++) {
+                Territory adjacent = graph.getTerritory(graph.getAdjacent(edge));
+                assertTrue(territory.getAdjacentList().contains(adjacent.getId()));
+                assertTrue(adjacent.getAdjacentList().contains(territory.getId()));
+            }
+        }
+    }
+
+    /**
+     * Test looking up territories on a custom map whose continent IDs are not two characters long
+     * @throws IOException If the file cannot be read
+     * @throws SAXException If the file is improperly formatted
+     * @throws ParserConfigurationException If the parser is incorrectly configured
+     */
+    @Test
+    public void testFindTerritoryLongContinentId() throws IOException, SAXException, ParserConfigurationException {
+        Game game = new Game();
+        game.importCustomMap("tests/longIdCustomMap.xml");
+
+        assertEquals("Glacier", game.findTerritory("NORTH2").orElseThrow().getName());
+        assertEquals("Desert", game.findTerritory("S1").orElseThrow().getName());
+        assertFalse(game.findTerritory("NORTH3").isPresent());
+        assertFalse(game.findTerritory("NO").isPresent());
+
+        Territory tundra = game.findTerritory("NORTH1").orElseThrow();
+        Map<String, Boolean> players = new HashMap<>();
+        players.put("a", false);
+        players.put("b", false);
+        game.initialize(players);
+        int adjacent = tundra.getAdjacentFriendly().size() + tundra.getAdjacentEnemy().size();
+        assertEquals(2, adjacent);
+    }
+
+    /**
+     * Test that the incrementally maintained frontiers match a full rescan after initialization and after
+     * a territory is conquered
+     */
+    @Test
+    public void testFrontiersMatchRescan() {
+        assertFrontiersMatchRescan();
+
+        Player attacker = game.getCurrentPlayer();
+        Territory attacking = attacker.getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+        attacking.setNumArmies(5);
+        game.attackWon(attacking, defending, 3);
+
+        assertEquals(attacker, defending.getOwner());
+        assertFrontiersMatchRescan();
+    }
+
+    private void assertFrontiersMatchRescan() {
+        for (Player player : game.getActivePlayers()) {
+            Set<Territory> withEnemy = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<Territory> withAlly = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Territory territory : player.getAllLandOwned()) {
+                if (!territory.getAdjacentEnemy().isEmpty()) withEnemy.add(territory);
+                if (!territory.getAdjacentFriendly().isEmpty()) withAlly.add(territory);
+            }
+            assertEquals(withEnemy.size(), player.getLandWithAdjacentEnemy().size());
+            assertEquals(withAlly.size(), player.getLandWithAdjacentAlly().size());
+            assertTrue(withEnemy.containsAll(player.getLandWithAdjacentEnemy()));
+            assertTrue(withAlly.containsAll(player.getLandWithAdjacentAlly()));
+        }
+    }
+
+    /**
+     * Test that continent conquerors and continent bonuses follow ownership changes
+     * @throws IOException If the file cannot be read
+     * @throws SAXException If the file is improperly formatted
+     * @throws ParserConfigurationException If the parser is incorrectly configured
+     */
+    @Test
+    public void testContinentOwnershipTracking() throws IOException, SAXException, ParserConfigurationException {
+        Game game = new Game();
+        game.importCustomMap("tests/validCustomMap.xml");
+        game.initialize(playerNames);
+        Continent northAmerica = game.getContinents().get("NA");
+        Player a = game.getActivePlayers().get(0);
+        Player b = game.getActivePlayers().get(1);
+        assertFalse(northAmerica.getConqueror().isPresent());
+
+        for (Territory territory : northAmerica.getTerritoryList()) {
+            territory.setPlayer(a);
+        }
+        assertEquals(a, northAmerica.getConqueror().orElseThrow());
+        assertEquals(4, a.getContinentBonus());
+        assertEquals(1, a.getContinentsHeld());
+        assertEquals(0, b.getContinentBonus());
+
+        northAmerica.getTerritoryList().get(0).setPlayer(b);
+        assertFalse(northAmerica.getConqueror().isPresent());
+        assertEquals(0, a.getContinentBonus());
+        assertEquals(0, a.getContinentsHeld());
+    }
+
+    /**
+     * Test that a game between AI players runs to completion without any view or GUI
+     */
+    @Test(timeout = 60000)
+    public void testHeadlessAIGame() {
+        Game game = new Game();
+        Map<String, Boolean> players = new LinkedHashMap<>();
+        players.put("AI 1", true);
+        players.put("AI 2", true);
+        players.put("AI 3", true);
+        game.initialize(players);
+
+        game.AITurn();
+
+        assertEquals(1, game.getActivePlayers().size());
+        assertEquals(42, game.getActivePlayers().get(0).getAllLandOwnedSize());
+    }
+
+    /**
+     * Test that two games with the same seed play out identically
+     */
+    @Test(timeout = 60000)
+    public void testSameSeedReplaysGame() {
+        Game[] games = {new Game(new GameRandom(1234)), new Game(new GameRandom(1234))};
+        for (Game game : games) {
+            Map<String, Boolean> players = new LinkedHashMap<>();
+            players.put("AI 1", true);
+            players.put("AI 2", true);
+            players.put("AI 3", true);
+            game.initialize(players);
+            game.AITurn();
+        }
+
+        assertEquals(games[0].getTurn(), games[1].getTurn());
+        assertEquals(games[0].getActivePlayers(), games[1].getActivePlayers());
+        TerritoryGraph first = games[0].getGraph();
+        TerritoryGraph second = games[1].getGraph();
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.getTerritory(i).getNumArmies(), second.getTerritory(i).getNumArmies());
+            assertEquals(first.getTerritory(i).getOwner(), second.getTerritory(i).getOwner());
+        }
+    }
+
+    /**
+     * Test that a 3 vs 2 dice attack always removes two armies in total, and that the defender loses both
+     * about as often as the exact odds (2890 / 7776) predict
+     */
+    @Test
+    public void testAttackDiceOutcomes() {
+        Player p = game.getCurrentPlayer();
+        Territory attacking = p.getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+
+        int rounds = 20000;
+        int defenderLostBoth = 0;
+        for (int i = 0; i < rounds; i++) {
+            attacking.setNumArmies(10);
+            defending.setNumArmies(10);
+            assertFalse(game.attack(attacking, 3, defending, 2));
+            int attackLosses = 10 - attacking.getNumArmies();
+            int defendLosses = 10 - defending.getNumArmies();
+            assertEquals(2, attackLosses + defendLosses);
+            if (defendLosses == 2) defenderLostBoth++;
+        }
+        assertEquals(2890.0 / 7776, (double) defenderLostBoth / rounds, 0.02);
+    }
+
+    /**
+     * Test that a blitz keeps attacking until the territory falls or the attacker reaches its stop threshold
+     */
+    @Test
+    public void testBlitz() {
+        Player p = game.getCurrentPlayer();
+        Territory attacking = p.getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+
+        for (int i = 0; i < 100; i++) {
+            attacking.setNumArmies(10);
+            defending.setNumArmies(50);
+            assertFalse(game.blitz(attacking, defending, 5));
+            assertTrue(attacking.getNumArmies() <= 5 && attacking.getNumArmies() >= 4);
+
+            attacking.setNumArmies(30);
+            defending.setNumArmies(2);
+            if (game.blitz(attacking, defending, 1)) {
+                assertTrue(attacking.getNumArmies() > 1);
+                assertEquals(p, attacking.getOwner());
+            } else {
+                assertEquals(1, attacking.getNumArmies());
+            }
+        }
+    }
+
+    /**
+     * Test that a human defender is asked once how many dice to roll for the whole blitz
+     */
+    @Test
+    public void testBlitzAsksHumanDefender() {
+        Territory attacking = game.getCurrentPlayer().getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+        List<Integer> asked = new ArrayList<>();
+        game.setPlayerDecisions((territory, maxArmies) -> {
+            asked.add(maxArmies);
+            return 1;
+        });
+
+        attacking.setNumArmies(20);
+        defending.setNumArmies(100);
+        assertFalse(game.blitz(attacking, defending, 10));
+        assertEquals(Collections.singletonList(Game.MAX_DEFEND_DICE), asked);
+        // With one defending die every round costs exactly one army, so the attacker cannot drop below its threshold
+        assertEquals(10, attacking.getNumArmies());
+
+        // Nothing is asked if the attacker cannot roll
+        game.blitz(attacking, defending, attacking.getNumArmies());
+        assertEquals(1, asked.size());
+    }
+
+    /**
+     * Creates a game between AI players with a seeded random number generator
+     */
+    private Game newAIGame(long seed, String... names) {
+        Game aiGame = new Game(new GameRandom(seed));
+        HashMap<String, Boolean> ai = new HashMap<>();
+        for (String name : names) {
+            ai.put(name, true);
+        }
+        aiGame.initialize(ai);
+        return aiGame;
+    }
+
+    /**
+     * Adds a view that records every batch of events it is sent and fails on full refreshes
+     */
+    private List<List<GameEvent>> recordEvents() {
+        List<List<GameEvent>> batches = new ArrayList<>();
+        game.addGameView(new GameView() {
+            @Override
+            public void updateView(Game game) {
+                fail("A full refresh should not be needed for a single change");
+            }
+
+            @Override
+            public void handleEvents(List<GameEvent> events) {
+                batches.add(events);
+            }
+
+            @Override
+            public void log(LogEvent event) {
+            }
+        });
+        return batches;
+    }
+
+    /**
+     * Test that each command only sends the views the territories and state it changed
+     */
+    @Test
+    public void testEventsOnlyDescribeChanges() {
+        List<List<GameEvent>> batches = recordEvents();
+        Player p = game.getCurrentPlayer();
+        Territory attacking = p.getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+        Player defender = defending.getOwner();
+
+        game.placePhase(Map.of(attacking.getId(), 3));
+        assertEquals(1, batches.size());
+        List<GameEvent> events = batches.get(0);
+        assertEquals(2, events.size());
+        assertEquals(GameEvent.Type.ARMIES_CHANGED, events.get(0).getType());
+        assertEquals(attacking, events.get(0).getTerritory());
+        assertEquals(GameEvent.Type.PHASE_CHANGED, events.get(1).getType());
+        assertEquals(Game.Status.PLACE, events.get(1).getStatus());
+
+        attacking.setNumArmies(10);
+        defending.setNumArmies(1);
+        game.attackWon(attacking, defending, 3);
+        assertEquals(2, batches.size());
+        events = batches.get(1);
+        assertEquals(GameEvent.Type.ARMIES_CHANGED, events.get(0).getType());
+        assertEquals(attacking, events.get(0).getTerritory());
+        assertEquals(GameEvent.Type.OWNER_CHANGED, events.get(1).getType());
+        assertEquals(defending, events.get(1).getTerritory());
+        assertEquals(p, events.get(1).getPlayer());
+        assertEquals(defender, events.get(1).getPreviousOwner());
+        assertEquals(GameEvent.Type.PHASE_CHANGED, events.get(events.size() - 1).getType());
+
+        game.done();
+        assertEquals(3, batches.size());
+        events = batches.get(2);
+        assertEquals(GameEvent.Type.TURN_CHANGED, events.get(0).getType());
+        assertEquals(game.getCurrentPlayer(), events.get(0).getPlayer());
+        assertEquals(Game.Status.DONE, events.get(1).getStatus());
+    }
+
+    /**
+     * Test that log entries copy the numbers of an action and are only formatted as text when read
+     */
+    @Test
+    public void testLogEventsFormattedByView() {
+        List<LogEvent> entries = new ArrayList<>();
+        game.addGameView(new GameView() {
+            @Override
+            public void updateView(Game game) {
+            }
+
+            @Override
+            public void handleEvents(List<GameEvent> events) {
+            }
+
+            @Override
+            public void log(LogEvent event) {
+                entries.add(event);
+            }
+        });
+        Player p = game.getCurrentPlayer();
+        Territory attacking = p.getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+
+        game.placePhase(Map.of(attacking.getId(), 3));
+        assertEquals(1, entries.size());
+        assertEquals(LogEvent.Type.PLACED, entries.get(0).getType());
+        assertEquals(p.getName() + " has placed 3 armies into " + attacking.getName() + " which now has "
+                + attacking.getNumArmies() + " armies\n", entries.get(0).toString());
+
+        attacking.setNumArmies(10);
+        defending.setNumArmies(10);
+        game.attack(attacking, 3, defending, 2);
+        LogEvent attack = entries.get(1);
+        assertEquals(LogEvent.Type.ATTACKED, attack.getType());
+        assertEquals(2, attack.getAttackLosses() + attack.getDefendLosses());
+        // The numbers were copied, later changes do not change the text
+        String text = attack.toString();
+        attacking.setNumArmies(1);
+        assertEquals(text, attack.toString());
+        assertTrue(text.startsWith(p.getName() + " is attacking " + defending.getName() + " with " + attacking.getName() + "!\n"));
+        assertTrue(text.contains("It has " + (10 - attack.getAttackLosses()) + " unit(s) left."));
+        assertTrue(text.matches("(?s).*Attacker rolled 3 dice: \\[[1-6], [1-6], [1-6]\\]\n.*"));
+    }
+
+    /**
+     * Test that the changes made in a batch reach the views once, with one event per territory
+     */
+    @Test
+    public void testBatchMergesEvents() {
+        List<List<GameEvent>> batches = recordEvents();
+        Player p = game.getCurrentPlayer();
+        Territory attacking = p.getLandWithAdjacentEnemy().get(0);
+        Territory defending = attacking.getAdjacentEnemy().get(0);
+        Player defender = defending.getOwner();
+
+        game.beginBatch();
+        game.placePhase(Map.of(attacking.getId(), 3));
+        game.placePhase(Map.of(attacking.getId(), 3));
+        attacking.setNumArmies(10);
+        defending.setNumArmies(1);
+        game.attackWon(attacking, defending, 3);
+        game.movePhase(1, attacking, defending);
+        assertTrue(batches.isEmpty());
+        game.commitBatch();
+
+        assertEquals(1, batches.size());
+        List<GameEvent> events = batches.get(0);
+        assertEquals(4, events.size());
+        assertEquals(GameEvent.Type.ARMIES_CHANGED, events.get(0).getType());
+        assertEquals(attacking, events.get(0).getTerritory());
+        assertEquals(GameEvent.Type.OWNER_CHANGED, events.get(1).getType());
+        assertEquals(defender, events.get(1).getPreviousOwner());
+        assertEquals(GameEvent.Type.TURN_CHANGED, events.get(2).getType());
+        assertEquals(Game.Status.DONE, events.get(3).getStatus());
+    }
+
+    /**
+     * Test that every AI turn reaches the views as a single batch
+     */
+    @Test
+    public void testOneBatchPerAITurn() {
+        game = newAIGame(7, "a", "b");
+        game.setTurnLimit(200);
+        List<List<GameEvent>> batches = recordEvents();
+
+        game.AITurn();
+        assertFalse(batches.isEmpty());
+        for (List<GameEvent> events : batches) {
+            assertTrue(events.stream().filter(e -> e.getType() == GameEvent.Type.TURN_CHANGED).count() <= 1);
+            assertTrue(events.stream().filter(e -> e.getType() == GameEvent.Type.PHASE_CHANGED).count() <= 1);
+            assertTrue(events.stream().filter(e -> e.getTerritory() != null)
+                    .map(e -> e.getTerritory().getIndex()).distinct().count()
+                    == events.stream().filter(e -> e.getTerritory() != null).count());
+        }
+    }
+
+    /**
+     * Test that a paused AI stops after its turn and ends its turns when cancelled
+     */
+    @Test
+    public void testAIControlPausesAndCancels() throws InterruptedException {
+        game = newAIGame(3, "a", "b");
+        AIControl control = new AIControl();
+        control.pause();
+        game.setAIControl(control);
+        CountDownLatch turnEnded = new CountDownLatch(1);
+        game.addGameView(new GameView() {
+            @Override
+            public void updateView(Game game) {
+            }
+
+            @Override
+            public void handleEvents(List<GameEvent> events) {
+                if (events.stream().anyMatch(e -> e.getType() == GameEvent.Type.TURN_CHANGED)) {
+                    turnEnded.countDown();
+                }
+            }
+
+            @Override
+            public void log(LogEvent event) {
+            }
+        });
+
+        // The first AI turn is played, then the game waits before the next one
+        Thread aiThread = new Thread(game::AITurn);
+        aiThread.start();
+        assertTrue(turnEnded.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (aiThread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(Thread.State.WAITING, aiThread.getState());
+        assertEquals(2, game.getTurn());
+
+        control.resume();
+        control.pause();
+        control.cancel();
+        aiThread.join(5000);
+        assertFalse(aiThread.isAlive());
+        assertTrue(game.getCurrentPlayer().isAI());
+    }
+
+    /**
+     * Test that AI turns are spaced out by the turn delay and that lowering the delay ends a wait
+     */
+    @Test
+    public void testAIControlTurnDelay() throws InterruptedException {
+        // The first delay counts from when the control is made, so the clock starts before that
+        long start = System.nanoTime();
+        AIControl control = new AIControl();
+        control.setTurnDelay(100);
+        assertTrue(control.awaitTurn());
+        assertTrue(control.awaitTurn());
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 200);
+
+        // Uncapped again while waiting, the wait ends at once
+        control.setTurnDelay(60_000);
+        Thread waiting = new Thread(control::awaitTurn);
+        waiting.start();
+        waiting.join(100);
+        assertTrue(waiting.isAlive());
+        control.setTurnDelay(0);
+        waiting.join(5000);
+        assertFalse(waiting.isAlive());
+    }
+
+    /**
+     * Test that changes queued between two frames keep only the latest state of each territory and player
+     */
+    @Test
+    public void testViewChangesKeepLatestState() {
+        game = newAIGame(5, "a", "b");
+        Territory territory = game.getGraph().getTerritory(0);
+        Player owner = territory.getOwner();
+
+        ViewChanges changes = new ViewChanges();
+        assertTrue(changes.isEmpty());
+        territory.addArmy(1);
+        changes.add(List.of(GameEvent.armiesChanged(territory)), List.of(new Leaderboard.Row(owner)), 1, false, null);
+        territory.addArmy(1);
+        changes.add(List.of(GameEvent.armiesChanged(territory), GameEvent.phaseChanged(Game.Status.DONE)),
+                List.of(new Leaderboard.Row(owner)), 2, true, null);
+
+        // Two batches between frames are drawn as one change per territory and player
+        assertFalse(changes.isEmpty());
+        assertEquals(1, changes.getTerritories().size());
+        assertEquals(territory.getNumArmies(), changes.getTerritories().iterator().next().getArmies());
+        assertEquals(1, changes.getRows().size());
+        assertEquals(owner.getTotalArmies(), changes.getRows().iterator().next().getArmies());
+        assertEquals(Game.Status.DONE, changes.getStatus());
+        assertTrue(changes.isHumanTurn());
+        assertEquals(2, changes.getTurn());
+        assertNull(changes.getCurrentPlayer());
+    }
+
+    /**
+     * Test that a saved snapshot restores the same game, which plays on from there
+     */
+    @Test
+    public void testSnapshotRestoresSameGame() throws IOException {
+        game = newAIGame(17, "a", "b", "c");
+        game.setTurnLimit(20);
+        game.AITurn();
+
+        Path file = Files.createTempFile("risk", ".sav");
+        try {
+            game.snapshot().save(file);
+            assertTrue(Files.size(file) < 400);
+            Game loaded = new Game(new GameRandom(0));
+            loaded.restore(GameSnapshot.load(file));
+
+            assertEquals(game.snapshot(), loaded.snapshot());
+            assertEquals(game.getCurrentPlayer().getName(), loaded.getCurrentPlayer().getName());
+            for (int i = 0; i < game.getActivePlayers().size(); i++) {
+                Player expected = game.getActivePlayers().get(i);
+                Player actual = loaded.getActivePlayers().get(i);
+                assertEquals(expected.getAllLandOwnedSize(), actual.getAllLandOwnedSize());
+                assertEquals(expected.getTotalArmies(), actual.getTotalArmies());
+                assertEquals(expected.getContinentBonus(), actual.getContinentBonus());
+                assertEquals(expected.getLandWithAdjacentEnemy().size(), actual.getLandWithAdjacentEnemy().size());
+            }
+
+            // The loaded game plays on from where it was saved
+            loaded.setTurnLimit(40);
+            loaded.AITurn();
+            assertTrue(loaded.getTurn() > 20);
+            int territories = 0;
+            for (Player player : loaded.getActivePlayers()) {
+                territories += player.getAllLandOwnedSize();
+            }
+            assertEquals(loaded.getGraph().size(), territories);
+
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6});
+            try {
+                GameSnapshot.load(file);
+                fail("A file that is not a saved game should not load");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that a snapshot of another map is refused without changing the game
+     */
+    @Test
+    public void testRestoreMismatchLeavesGame() {
+        game = newAIGame(19, "a", "b", "c");
+        game.setTurnLimit(10);
+        game.AITurn();
+
+        GameSnapshot before = game.snapshot();
+        TerritoryGraph graph = game.getGraph();
+        Map<String, Continent> continents = game.getContinents();
+        String[] names = new String[before.getPlayerCount()];
+        boolean[] playerAI = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = before.getPlayerName(i);
+            playerAI[i] = before.isPlayerAI(i);
+        }
+        byte[] owners = new byte[before.getTerritoryCount()];
+        int[] armies = new int[owners.length];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = (byte) before.getOwner(i);
+            armies[i] = before.getArmies(i) + 1;
+        }
+        GameSnapshot other = new GameSnapshot(before.getMapFingerprint() + 1, null, null, names, playerAI, owners, armies,
+                before.getCurrentPlayer(), before.getTurn() + 1, before.getTurnLimit(), before.getStatus(),
+                before.getRandomSeed(), before.getRandomGamma());
+        try {
+            game.restore(other);
+            fail("A snapshot of another map should not be restored");
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertSame(graph, game.getGraph());
+        assertSame(continents, game.getContinents());
+        assertEquals(before, game.snapshot());
+        for (int i = 0; i < graph.size(); i++) {
+            assertTrue(game.getActivePlayers().contains(graph.getTerritory(i).getOwner()));
+        }
+    }
+
+    /**
+     * Test that replaying the journal ends in the same game, even after a crash cut a record short
+     */
+    @Test
+    public void testJournalReplaysGame() throws IOException {
+        game = newAIGame(23, "a", "b", "c");
+        game.setTurnLimit(30);
+
+        Path file = Files.createTempFile("risk", ".journal");
+        try (GameJournal journal = new GameJournal(file, game, 8)) {
+            game.setJournal(journal);
+            game.AITurn();
+            journal.flush();
+            assertEquals(31, game.getTurn());
+
+            // Replay starts from the snapshot taken after turn 24, and ends with the same territories and dice
+            Game replayed = new Game(new GameRandom(0));
+            int records = GameJournal.replay(file, replayed);
+            assertTrue(records > 0);
+            assertEquals(game.snapshot(), replayed.snapshot());
+
+            // A record cut short by a crash is ignored
+            Files.write(file, new byte[]{2, 0, 0}, StandardOpenOption.APPEND);
+            Game afterCrash = new Game(new GameRandom(0));
+            assertEquals(records, GameJournal.replay(file, afterCrash));
+            assertEquals(replayed.snapshot(), afterCrash.snapshot());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that rotating keeps the journals of earlier sessions, dropping the oldest
+     */
+    @Test
+    public void testJournalRotation() throws IOException {
+        Path dir = Files.createTempDirectory("risk");
+        Path file = dir.resolve(GameJournal.JOURNAL_FILE);
+        try {
+            GameJournal.rotate(file, 2);
+            assertFalse(Files.exists(dir.resolve(GameJournal.JOURNAL_FILE + ".1")));
+
+            for (int session = 1; session <= 3; session++) {
+                Files.write(file, new byte[]{(byte) session});
+                GameJournal.rotate(file, 2);
+            }
+            assertFalse(Files.exists(file));
+            assertArrayEquals(new byte[]{3}, Files.readAllBytes(dir.resolve(GameJournal.JOURNAL_FILE + ".1")));
+            assertArrayEquals(new byte[]{2}, Files.readAllBytes(dir.resolve(GameJournal.JOURNAL_FILE + ".2")));
+            assertFalse(Files.exists(dir.resolve(GameJournal.JOURNAL_FILE + ".3")));
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path f : files) {
+                    Files.delete(f);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Test that the autosave writes snapshots of the game to its slot on a background thread
+     */
+    @Test
+    public void testAutosaveWritesInBackground() throws Exception {
+        game = newAIGame(29, "a", "b");
+        game.setTurnLimit(10);
+
+        Path dir = Files.createTempDirectory("risk");
+        SaveCatalog catalog = new SaveCatalog(dir);
+        Autosave autosave = new Autosave(game, catalog, "autosave", 5, 3600);
+        try {
+            game.addGameView(autosave);
+            game.AITurn();
+
+            // Writes run in order, so the autosaves taken during the AI turns are on disk once this one is
+            autosave.saveTo("manual").get();
+            assertEquals(game.snapshot(), catalog.load("manual"));
+            GameSnapshot autosaved = catalog.load("autosave");
+            assertTrue(autosaved.getTurn() > 1 && autosaved.getTurn() <= game.getTurn());
+
+            autosave.save().get();
+            assertEquals(game.snapshot(), catalog.load("autosave"));
+            assertFalse(Files.exists(dir.resolve("autosave.sav.tmp")));
+            assertEquals(2, catalog.entries().size());
+        } finally {
+            autosave.close();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path f : files) {
+                    Files.delete(f);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Test that the armies and reinforcements each player keeps track of match a count of its territories
+     */
+    @Test
+    public void testPlayerStatsMatchRescan() {
+        game = newAIGame(11, "a", "b", "c");
+        game.setTurnLimit(60);
+        List<Player> players = new ArrayList<>(game.getActivePlayers());
+        game.AITurn();
+
+        for (Player player : players) {
+            int armies = 0;
+            for (Territory territory : player.getAllLandOwned()) {
+                armies += territory.getNumArmies();
+            }
+            assertEquals(armies, player.getTotalArmies());
+            assertEquals(Math.max(3, player.getAllLandOwnedSize() / 3) + player.getContinentBonus(), player.getReinforcements());
+        }
+    }
 }
@@ -0,0 +1,91 @@
+import org.junit.*;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardTest {
+    Game game;
+    Leaderboard leaderboard;
+
+    @Before
+    public void SetUp() {
+        game = new Game(new GameRandom(5));
+        HashMap<String, Boolean> playerNames = new HashMap<>();
+        playerNames.put("a", false);
+        playerNames.put("b", false);
+        playerNames.put("c", false);
+        game.initialize(playerNames);
+        leaderboard = new Leaderboard();
+        leaderboard.reset(game.getActivePlayers());
+    }
+
+    @After
+    public void TearDown() {
+        game = null;
+        leaderboard = null;
+    }
+
+    private void assertRanked() {
+        List<Player> expected = new ArrayList<>(game.getActivePlayers());
+        expected.sort(Comparator.comparing(Player::getAllLandOwnedSize).reversed()
+                .thenComparing(Comparator.comparing(Player::getTotalArmies).reversed())
+                .thenComparing(Player::getName));
+        assertEquals(expected.size(), leaderboard.getSize());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), leaderboard.getRow(i).getName());
+            assertEquals(expected.get(i).getTotalArmies(), leaderboard.getRow(i).getArmies());
+        }
+    }
+
+    @Test
+    public void testUpdateReranksOnePlayer() {
+        assertRanked();
+        Player last = game.getActivePlayers().stream()
+                .filter(p -> p.getName().equals(leaderboard.getRow(2).getName())).findFirst().get();
+        List<ListDataEvent> changes = new ArrayList<>();
+        leaderboard.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                changes.add(e);
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                changes.add(e);
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                changes.add(e);
+            }
+        });
+
+        // Take a territory from each other player so the last player moves to the top
+        for (Player other : new ArrayList<>(game.getActivePlayers())) {
+            if (other != last) {
+                Territory territory = other.getAllLandOwned().get(0);
+                territory.setPlayer(last);
+                last.addTerritory(territory);
+                other.removeTerritory(territory);
+                leaderboard.update(new Leaderboard.Row(other));
+            }
+        }
+        leaderboard.update(new Leaderboard.Row(last));
+        assertRanked();
+        assertEquals(last.getName(), leaderboard.getRow(0).getName());
+        assertEquals(3, changes.size());
+    }
+
+    @Test
+    public void testRemoveEliminatedPlayer() {
+        String name = leaderboard.getRow(1).getName();
+        leaderboard.remove(name);
+        assertEquals(2, leaderboard.getSize());
+        for (int i = 0; i < leaderboard.getSize(); i++) {
+            assertNotEquals(name, leaderboard.getRow(i).getName());
+        }
+    }
+}
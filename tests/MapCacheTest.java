@@ -0,0 +1,130 @@
+import org.junit.*;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MapCacheTest {
+    Path directory;
+    MapCache cache;
+
+    @Before
+    public void SetUp() throws IOException {
+        directory = Files.createTempDirectory("MapCacheTest");
+        cache = new MapCache(directory);
+    }
+
+    @After
+    public void TearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private Game newGame(MapCache mapCache) throws IOException, SAXException, ParserConfigurationException {
+        Game game = new Game(new GameRandom(13));
+        game.setMapCache(mapCache);
+        game.importCustomMap("DefaultMap.xml");
+        return game;
+    }
+
+    @Test
+    public void testCachedMapMatchesParsedMap() throws IOException, SAXException, ParserConfigurationException {
+        Game parsed = newGame(null);
+        Game compiling = newGame(cache);
+        String hash = MapCache.hash(Files.readAllBytes(Paths.get("DefaultMap.xml")));
+        assertTrue(Files.exists(cache.getFile(hash)));
+
+        Game cached = newGame(cache);
+        TerritoryGraph expected = parsed.getGraph();
+        TerritoryGraph actual = cached.getGraph();
+        assertEquals(expected.getFingerprint(), compiling.getGraph().getFingerprint());
+        assertEquals(expected.getFingerprint(), actual.getFingerprint());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getTerritory(i).getName(), actual.getTerritory(i).getName());
+            assertEquals(expected.getTerritory(i).getContinent().getName(), actual.getTerritory(i).getContinent().getName());
+            assertTrue(actual.getTerritory(i).getAdjacentList().containsAll(expected.getTerritory(i).getAdjacentList()));
+        }
+        assertEquals(parsed.getContinents().keySet(), cached.getContinents().keySet());
+
+        // The same seed plays the same game on either map
+        Map<String, Boolean> players = new HashMap<>();
+        players.put("a", true);
+        players.put("b", true);
+        players.put("c", true);
+        parsed.initialize(players);
+        cached.initialize(players);
+        parsed.setTurnLimit(30);
+        cached.setTurnLimit(30);
+        parsed.AITurn();
+        cached.AITurn();
+        assertEquals(parsed.snapshot(), cached.snapshot());
+    }
+
+    @Test
+    public void testDamagedCacheIsCompiledAgain() throws IOException, SAXException, ParserConfigurationException {
+        String hash = MapCache.hash(Files.readAllBytes(Paths.get("DefaultMap.xml")));
+        assertNull(cache.load(hash));
+        long fingerprint = newGame(cache).getGraph().getFingerprint();
+
+        Files.write(cache.getFile(hash), new byte[]{0x52, 0x4d, 0x41, 0x50, 0, 1, 0, 0});
+        try {
+            cache.load(hash);
+            fail("A truncated compiled map cannot be loaded");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(fingerprint, newGame(cache).getGraph().getFingerprint());
+        assertNotNull(cache.load(hash));
+    }
+
+    @Test
+    public void testStreamImportedMapIsRestored() throws IOException, SAXException, ParserConfigurationException {
+        byte[] xml = Files.readAllBytes(Paths.get("tests/validCustomMap.xml"));
+        Game game = new Game(new GameRandom(13));
+        game.setMapCache(cache);
+        game.importCustomMap(new ByteArrayInputStream(xml));
+        Map<String, Boolean> players = new HashMap<>();
+        players.put("a", true);
+        players.put("b", true);
+        game.initialize(players);
+        GameSnapshot snapshot = game.snapshot();
+        assertNull(snapshot.getMapFile());
+        assertEquals(MapCache.hash(xml), snapshot.getMapHash());
+
+        // The map is loaded from the cache by its key
+        Game restored = newGame(cache);
+        restored.restore(snapshot);
+        assertEquals(snapshot, restored.snapshot());
+
+        // Without a cache the map could not be found again, so the game cannot be saved or restored
+        Game uncached = newGame(null);
+        try {
+            uncached.restore(snapshot);
+            fail("The map is not in a cache");
+        } catch (IOException e) {
+            // expected
+        }
+        uncached.importCustomMap(new ByteArrayInputStream(xml));
+        uncached.initialize(players);
+        try {
+            uncached.snapshot();
+            fail("A map imported from a stream cannot be saved without a cache");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.*;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class MapTreeModelTest {
+    Game game;
+    MapTreeModel model;
+
+    @Before
+    public void SetUp() {
+        game = new Game(new GameRandom(1));
+        HashMap<String, Boolean> playerNames = new HashMap<>();
+        playerNames.put("a", false);
+        playerNames.put("b", false);
+        game.initialize(playerNames);
+        model = new MapTreeModel();
+        model.setContinents(game.getContinents());
+    }
+
+    @After
+    public void TearDown() {
+        game = null;
+        model = null;
+    }
+
+    @Test
+    public void testModelReadsTerritories() {
+        Object root = model.getRoot();
+        assertEquals(game.getContinents().size(), model.getChildCount(root));
+        int territories = 0;
+        for (int i = 0; i < model.getChildCount(root); i++) {
+            Object continent = model.getChild(root, i);
+            assertTrue(continent instanceof Continent);
+            assertFalse(model.isLeaf(continent));
+            assertEquals(i, model.getIndexOfChild(root, continent));
+            for (int j = 0; j < model.getChildCount(continent); j++) {
+                Object territory = model.getChild(continent, j);
+                assertTrue(model.isLeaf(territory));
+                assertEquals(j, model.getIndexOfChild(continent, territory));
+                territories++;
+            }
+        }
+        assertEquals(game.getGraph().size(), territories);
+    }
+
+    @Test
+    public void testOnlyChangedTerritoryIsReported() {
+        List<TreeModelEvent> changes = new ArrayList<>();
+        model.addTreeModelListener(new TreeModelListener() {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e) {
+                changes.add(e);
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e) {
+                fail();
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e) {
+                fail();
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e) {
+                fail();
+            }
+        });
+
+        Territory territory = game.getGraph().getTerritory(5);
+        model.territoryChanged(territory, territory.getOwner(), 42);
+        assertEquals(1, changes.size());
+        TreeModelEvent change = changes.get(0);
+        assertArrayEquals(new Object[]{territory}, change.getChildren());
+        assertSame(territory.getContinent(), change.getTreePath().getLastPathComponent());
+        assertEquals(territory, model.getChild(territory.getContinent(), change.getChildIndices()[0]));
+        assertEquals(42, model.getNumArmies(territory));
+        assertEquals(territory.getOwner(), model.getOwner(territory));
+    }
+}
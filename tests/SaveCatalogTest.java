@@ -0,0 +1,98 @@
+import org.junit.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SaveCatalogTest {
+    Path directory;
+    SaveCatalog catalog;
+    Game game;
+
+    @Before
+    public void SetUp() throws IOException {
+        directory = Files.createTempDirectory("SaveCatalogTest");
+        catalog = new SaveCatalog(directory);
+        game = new Game(new GameRandom(5));
+        HashMap<String, Boolean> players = new HashMap<>();
+        players.put("Alice", true);
+        players.put("Bob", true);
+        players.put("Carol", true);
+        game.initialize(players);
+    }
+
+    @After
+    public void TearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testSlotsListedFromIndex() throws IOException {
+        assertTrue(catalog.entries().isEmpty());
+
+        for (int i = 0; i < 200; i++) {
+            catalog.save("slot " + i, game.snapshot());
+        }
+        game.setTurnLimit(5);
+        game.AITurn();
+        // Resave once the clock has moved on, so the slot is the most recently saved
+        long lastSave = System.currentTimeMillis();
+        while (System.currentTimeMillis() == lastSave) {
+            Thread.yield();
+        }
+        catalog.save("slot 7", game.snapshot());
+
+        List<SaveCatalog.Entry> entries = catalog.entries();
+        assertEquals(200, entries.size());
+        assertEquals(Files.size(directory.resolve("index.bin")), 12 + 200L * SaveCatalog.RECORD_SIZE);
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i - 1).getSavedAt() >= entries.get(i).getSavedAt());
+        }
+        SaveCatalog.Entry entry = entries.get(0);
+        assertEquals("slot 7", entry.getSlot());
+        assertEquals(game.getTurn(), entry.getTurn());
+        assertEquals(game.getActivePlayers().size(), entry.getPlayerCount());
+        assertTrue(entry.getPlayers().contains(game.getCurrentPlayer().getName()));
+        assertEquals(game.getGraph().getFingerprint(), entry.getMapFingerprint());
+        assertTrue(entry.getSavedAt() <= System.currentTimeMillis());
+        assertEquals(1, entries.get(1).getTurn());
+        assertEquals("slot 199", entries.get(1).getSlot());
+
+        assertEquals(game.snapshot(), catalog.load("slot 7"));
+    }
+
+    @Test
+    public void testSlotNamesAndTruncatedIndex() throws IOException {
+        assertFalse(SaveCatalog.isValidSlot("../escape"));
+        assertFalse(SaveCatalog.isValidSlot(" "));
+        assertFalse(SaveCatalog.isValidSlot("a name that is longer than thirty-two characters"));
+        try {
+            catalog.save("a/b", game.snapshot());
+            fail("Slot names cannot be paths");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        catalog.save("first", game.snapshot());
+        catalog.save("second", game.snapshot());
+        // A record cut short by a crash is not listed
+        try (FileChannel index = FileChannel.open(directory.resolve("index.bin"), StandardOpenOption.WRITE)) {
+            index.truncate(index.size() - 1);
+        }
+        List<SaveCatalog.Entry> entries = catalog.entries();
+        assertEquals(1, entries.size());
+        assertEquals("first", entries.get(0).getSlot());
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.*;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class TournamentTest {
+    byte[] defaultMap;
+
+    @Before
+    public void SetUp() throws IOException {
+        defaultMap = Files.readAllBytes(Paths.get("DefaultMap.xml"));
+    }
+
+    /**
+     * Test that every game played is counted once in the merged results
+     */
+    @Test(timeout = 60000)
+    public void testResultsCoverEveryGame() throws InterruptedException, ExecutionException {
+        Tournament tournament = new Tournament(defaultMap, 3, Tournament.DEFAULT_TURN_LIMIT);
+        Tournament.Result result = tournament.run(12, 4, 42);
+
+        assertEquals(12, result.getGames());
+        long wins = result.getWins(0) + result.getWins(1) + result.getWins(2);
+        assertEquals(12, wins + result.getDraws());
+        assertEquals(12L, result.getTurnDistribution().values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(result.getCaptureCount("AU") > 0);
+        assertTrue(result.getAverageCaptureTurn("AU") >= 1);
+    }
+
+    /**
+     * Test that a continent is counted as captured on the turn it was taken, not the turn after
+     */
+    @Test(timeout = 60000)
+    public void testCaptureTurnIsTurnPlayed() throws InterruptedException, ExecutionException {
+        // Only the first turn is played, so every capture happens on turn 1
+        Tournament tournament = new Tournament(defaultMap, 2, 1);
+        Tournament.Result result = tournament.run(40, 2, 3);
+
+        assertTrue(result.getCaptureCount("AU") > 0);
+        for (String continent : new String[]{"AU", "SA", "AF", "NA", "EU", "AS"}) {
+            if (result.getCaptureCount(continent) > 0) {
+                assertEquals(1.0, result.getAverageCaptureTurn(continent), 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Test that games stopped at the turn limit are counted as draws
+     */
+    @Test(timeout = 60000)
+    public void testTurnLimitCountsAsDraw() throws InterruptedException, ExecutionException {
+        Tournament tournament = new Tournament(defaultMap, 6, 2);
+        Tournament.Result result = tournament.run(4, 2, 7);
+
+        assertEquals(4, result.getDraws());
+        assertEquals(Integer.valueOf(3), result.getTurnDistribution().firstKey());
+    }
+
+    /**
+     * Test that the same seed gives the same results regardless of the number of threads
+     */
+    @Test(timeout = 60000)
+    public void testSeedIsReproducibleAcrossThreadCounts() throws InterruptedException, ExecutionException {
+        Tournament tournament = new Tournament(defaultMap, 4, Tournament.DEFAULT_TURN_LIMIT);
+
+        assertEquals(tournament.run(8, 1, 99).toString(), tournament.run(8, 3, 99).toString());
+    }
+
+    /**
+     * Test that games recorded in GameMetrics can be read through JMX and agree with the results
+     */
+    @Test(timeout = 60000)
+    public void testMetricsReadThroughJMX() throws InterruptedException, ExecutionException, JMException {
+        GameMetrics metrics = new GameMetrics();
+        ObjectName name = metrics.register("TournamentTest");
+        try {
+            Tournament tournament = new Tournament(defaultMap, 3, Tournament.DEFAULT_TURN_LIMIT);
+            tournament.setMetrics(metrics);
+            Tournament.Result result = tournament.run(6, 2, 42);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            long wins = result.getWins(0) + result.getWins(1) + result.getWins(2);
+            assertEquals(wins, server.getAttribute(name, "Wins"));
+            assertEquals(wins * 2, (long) (Long) server.getAttribute(name, "Eliminations"));
+            long conquests = (Long) server.getAttribute(name, "TerritoriesConquered");
+            assertTrue(conquests >= wins * 2);
+            assertTrue(metrics.getAttacks() >= conquests);
+            assertEquals(metrics.getTurns(), Arrays.stream(metrics.getAttacksPerTurn()).sum());
+            assertEquals(metrics.getTurns(), Arrays.stream((long[]) server.getAttribute(name, "TurnDurationMicros")).sum());
+            assertEquals(wins * 2, Arrays.stream(metrics.getEliminationToWinMillis()).sum());
+            long faces = Arrays.stream(metrics.getAttackerDiceFaces()).sum();
+            assertTrue(faces > 0 && faces <= 3 * metrics.getAttackRounds());
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0, metrics.getTurns());
+            assertEquals(0, metrics.getAttacksPerTurn().length);
+        } finally {
+            metrics.unregister(name);
+        }
+    }
+}